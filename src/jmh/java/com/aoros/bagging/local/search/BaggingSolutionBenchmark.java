@@ -0,0 +1,112 @@
+package com.aoros.bagging.local.search;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the bagging solution hot paths: moving an item between bags
+ * (remove + {@link BaggingSolution#addItemToBag(int, int)}) and copying a
+ * solution. Run with {@code -prof gc} to also report the allocation rate.
+ * <p>
+ * Instances are either files from {@code src/main/resources} (override the
+ * directory with {@code -Dbench.resources=...}) or synthetic instances named
+ * {@code synthetic-<numItems>}. Synthetic bagging instances stop at 10k items
+ * since the conflict matrices grow quadratically with the number of items.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaggingSolutionBenchmark {
+
+    private static final int NUM_MOVES = 1 << 12;
+
+    @Param({"g1", "g2", "g3", "g4", "g5", "g6", "g7", "g8", "g9", "g10", "g11",
+            "synthetic-1000", "synthetic-10000"})
+    public String instance;
+
+    private BaggingSolution solution;
+    private int[] moveItems;
+    private int[] moveBags;
+    private int nextMove;
+
+    @Setup
+    public void setup() throws FileNotFoundException {
+        BaggingItems items = loadInstance(instance);
+        Random r = new Random(42);
+        solution = new BaggingSolution(items);
+        int numBags = items.getNumAvailableBags();
+        int numItems = items.getSizes().length;
+        for (int i = 0; i < numItems; i++)
+            solution.addItemToBag(r.nextInt(numBags), i);
+        moveItems = new int[NUM_MOVES];
+        moveBags = new int[NUM_MOVES];
+        for (int m = 0; m < NUM_MOVES; m++) {
+            moveItems[m] = r.nextInt(numItems);
+            moveBags[m] = r.nextInt(numBags);
+        }
+    }
+
+    @Benchmark
+    public int addItemToBag() {
+        int m = nextMove++ & (NUM_MOVES - 1);
+        int itemId = moveItems[m];
+        solution.removeItemFromBag(solution.getBagOfItem(itemId), itemId);
+        solution.addItemToBag(moveBags[m], itemId);
+        return solution.getSolutionScore();
+    }
+
+    @Benchmark
+    public int getMoveItemDelta() {
+        int m = nextMove++ & (NUM_MOVES - 1);
+        int itemId = moveItems[m];
+        return solution.getMoveItemDelta(itemId, solution.getBagOfItem(itemId), moveBags[m]);
+    }
+
+    @Benchmark
+    public BaggingSolution copySolution() {
+        return new BaggingSolution(solution);
+    }
+
+    static BaggingItems loadInstance(String instance) throws FileNotFoundException {
+        if (instance.startsWith("synthetic-"))
+            return syntheticInstance(Integer.parseInt(instance.substring("synthetic-".length())), new Random(7));
+        return new BaggingFileReader().read(System.getProperty("bench.resources", "src/main/resources") + "/" + instance);
+    }
+
+    /**
+     * Generates an instance with 10 items per bag on average, roughly 80% bag
+     * fill and a handful of excluded partners per item.
+     */
+    static BaggingItems syntheticInstance(int numItems, Random r) {
+        int numBags = Math.max(1, numItems / 10);
+        int maxBagCapacity = 100;
+        List<GroceryItem> groceryItems = new ArrayList<>(numItems);
+        for (int i = 0; i < numItems; i++) {
+            Set<String> excluded = new HashSet<>();
+            for (int k = 0; k < 5; k++)
+                excluded.add("item" + r.nextInt(numItems));
+            excluded.remove("item" + i);
+            groceryItems.add(new GroceryItem("item" + i, 1 + r.nextInt(15), "-", excluded));
+        }
+        return new BaggingItems(numBags, maxBagCapacity, groceryItems);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jamesframework.examples.knapsack;
+
+import java.io.FileNotFoundException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.jamesframework.core.problems.constraints.validations.Validation;
+import org.jamesframework.core.problems.objectives.evaluations.Evaluation;
+import org.jamesframework.core.search.neigh.Move;
+import org.jamesframework.core.subset.SubsetSolution;
+import org.jamesframework.core.subset.neigh.SinglePerturbationNeighbourhood;
+import org.jamesframework.core.subset.neigh.moves.SubsetMove;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the knapsack delta evaluation and validation of single perturbation moves (addition, deletion
+ * and swap), separately and fused (see {@link KnapsackDelta#of}). Run with {@code -prof gc} to also report the allocation rate.
+ * <p>
+ * Instances are either files from {@code src/main/resources} (override the directory with
+ * {@code -Dbench.resources=...}) or synthetic instances named {@code synthetic-<numItems>}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KnapsackDeltaBenchmark {
+
+    private static final int NUM_MOVES = 1 << 12;
+
+    @Param({"knapsack-100", "knapsack-1000", "synthetic-10000", "synthetic-100000", "synthetic-1000000"})
+    public String instance;
+
+    private KnapsackData data;
+    private KnapsackObjective objective;
+    private KnapsackConstraint constraint;
+    private SubsetSolution solution;
+    private Evaluation evaluation;
+    private Validation validation;
+    private Move<? super SubsetSolution>[] moves;
+    private int nextMove;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws FileNotFoundException {
+        data = loadInstance(instance);
+        Random r = new Random(42);
+        // capacity: half of the total weight
+        double totalWeight = 0.0;
+        for (int id = 0; id < data.getIDs().size(); id++) {
+            totalWeight += data.getWeight(id);
+        }
+        objective = new KnapsackObjective();
+        constraint = new KnapsackConstraint(totalWeight / 2);
+        // random solution selecting about one quarter of the items
+        solution = new SubsetSolution(data.getIDs());
+        for (int id = 0; id < data.getIDs().size(); id++) {
+            if (r.nextInt(4) == 0) {
+                solution.select(id);
+            }
+        }
+        evaluation = objective.evaluate(solution, data);
+        validation = constraint.validate(solution, data);
+        // pregenerate random single perturbation moves
+        SinglePerturbationNeighbourhood neigh = new SinglePerturbationNeighbourhood();
+        moves = new Move[NUM_MOVES];
+        for (int m = 0; m < NUM_MOVES; m++) {
+            moves[m] = neigh.getRandomMove(solution, r);
+        }
+    }
+
+    @Benchmark
+    public Evaluation objectiveDelta() {
+        return objective.evaluate(moves[nextMove++ & (NUM_MOVES - 1)], solution, evaluation, data);
+    }
+
+    @Benchmark
+    public Validation constraintDelta() {
+        return constraint.validate(moves[nextMove++ & (NUM_MOVES - 1)], solution, validation, data);
+    }
+
+    @Benchmark
+    public KnapsackDelta fusedDelta() {
+        return KnapsackDelta.of((SubsetMove) moves[nextMove++ & (NUM_MOVES - 1)], data);
+    }
+
+    static KnapsackData loadInstance(String instance) throws FileNotFoundException {
+        if (instance.startsWith("synthetic-")) {
+            return syntheticInstance(Integer.parseInt(instance.substring("synthetic-".length())), new Random(7));
+        }
+        return new KnapsackFileReader().read(System.getProperty("bench.resources", "src/main/resources") + "/" + instance);
+    }
+
+    /**
+     * Generates weakly correlated items, similar to the shipped instances (profit = weight + 50, weights 1..1000).
+     */
+    static KnapsackData syntheticInstance(int numItems, Random r) {
+        double[] weights = new double[numItems];
+        double[] profits = new double[numItems];
+        for (int i = 0; i < numItems; i++) {
+            weights[i] = 1 + r.nextInt(1000);
+            profits[i] = weights[i] + 50;
+        }
+        return new KnapsackData(weights, profits);
+    }
+
+}
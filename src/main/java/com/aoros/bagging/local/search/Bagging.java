@@ -1,7 +1,13 @@
 package com.aoros.bagging.local.search;
 
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.jamesframework.core.problems.GenericProblem;
+import org.jamesframework.core.search.algo.ParallelTempering;
+import org.jamesframework.examples.util.ProgressSearchListener;
 
 /**
  * Main class for the bagging problem.
@@ -11,10 +17,38 @@ public class Bagging {
     private static String filePath = "src/main/resources/test4";
     private static int timeLimitInSecs = 30;
     private static final boolean VERBOSE = false;
+    private static final SearchMode SEARCH_MODE = SearchMode.PARALLEL_MULTI_START;
+    static final int NUM_RESTARTS = 10;
+    // number of parallel tempering replicas; 0 to use one per core (at least MIN_REPLICAS)
+    private static final int NUM_REPLICAS = 0;
+    private static final int MIN_REPLICAS = 4;
+    // parallel tempering temperature range, relative to the temperature scale of the instance
+    private static final double MIN_TEMP_FACTOR = 0.02;
+    private static final double MAX_TEMP_FACTOR = 0.2;
+    // stop (or, with restarts, restart) a search when its best score has not
+    // improved for this many seconds; 0 for no limit
+    private static final int MAX_SECS_WITHOUT_IMPROVEMENT = 0;
+
+    /**
+     * Available ways of running the bagging search.
+     */
+    public enum SearchMode {
+        /** Sequential restarts of a single local search. */
+        RESTARTS,
+        /** Concurrent local searches on all cores, stopping when one succeeds. */
+        PARALLEL_MULTI_START,
+        /** A single tabu search with min-conflicts move selection. */
+        TABU,
+        /** JAMES parallel tempering, with replicas running on all cores. */
+        PARALLEL_TEMPERING,
+        /** Concurrent local searches on all cores, exchanging their best solutions. */
+        ISLANDS
+    }
 
     /**
      * Runs the bagging problem. Expects two parameters: (1) the input file
-     * path, (2) the runtime limit (in seconds).
+     * path, (2) the runtime limit (in seconds). Without parameters, a default
+     * instance is solved.
      *
      * @param args array containing the input file path and runtime limit
      */
@@ -23,11 +57,12 @@ public class Bagging {
         System.out.println("# BAGGING PROBLEM #");
         System.out.println("########################");
         // parse arguments
-        if (args.length != 2 && "".equals(filePath)) {
+        if (args.length != 0 && args.length != 2) {
             System.err.println("Usage: java Bagging <inputfile> <runtime>");
             System.exit(1);
         }
-        if ("".equals(filePath)) {
+        // without arguments, the default instance and time limit are used
+        if (args.length == 2) {
             filePath = args[0];
             timeLimitInSecs = Integer.parseInt(args[1]);
         }
@@ -39,40 +74,265 @@ public class Bagging {
         System.out.println("# PARSING INPUT");
         try {
             printMsg("Reading file: " + filePath + "...", VERBOSE);
-            BaggingItems items = new BaggingFileReader().read(filePath);
+            BaggingItems items = readInstance(filePath);
             printMsg("Creating BaggingData...", VERBOSE);
             BaggingData data = new BaggingData(items);
             printMsg("Creating random solutions...", VERBOSE);
+            BaggingStopCriteria stopCriteria = createStopCriteria(timeLimitInSecs);
 
-            boolean solutionFound = false;
-            for (int k = 0; k < 10; k++) {
-                System.out.println("=== Start of ITERATION: " + k + " ===");
-                BaggingSolution randomBaggingSolution = data.createRandomSolution();
-                BaggingLocalSearch search = new BaggingLocalSearch(randomBaggingSolution, timeLimitInSecs, VERBOSE);
-                BaggingSolution solution = search.performSearch();
-
-                if (solution.getSolutionScore() == 0) {
-                    printBagOfItems(solution);
-                    solutionFound = true;
+            switch (SEARCH_MODE) {
+                case PARALLEL_MULTI_START:
+                    runMultiStart(data, stopCriteria);
+                    break;
+                case TABU:
+                    runTabu(data, stopCriteria);
+                    break;
+                case PARALLEL_TEMPERING:
+                    runParallelTempering(data, stopCriteria);
+                    break;
+                case ISLANDS:
+                    runIslands(data, stopCriteria);
                     break;
-                }
-                System.out.println("=== End of ITERATION: " + k + " ===");
+                default:
+                    runRestarts(data, stopCriteria);
             }
-            if (!solutionFound)
-                System.out.println("No Solution Found");
-        } catch (FileNotFoundException ex) {
+        } catch (IOException ex) {
             System.err.println("Failed to read file: " + filePath);
             System.exit(2);
         }
 
     }
 
+    /**
+     * Creates the stop criteria used by {@link #main(String[])}: the given
+     * runtime limit, a target score of 0 and, if
+     * {@link #MAX_SECS_WITHOUT_IMPROVEMENT} is set, a stagnation limit.
+     *
+     * @param timeLimitInSecs runtime limit (in seconds)
+     * @return the stop criteria
+     */
+    static BaggingStopCriteria createStopCriteria(int timeLimitInSecs) {
+        BaggingStopCriteria stopCriteria = new BaggingStopCriteria(timeLimitInSecs, TimeUnit.SECONDS);
+        if (MAX_SECS_WITHOUT_IMPROVEMENT > 0)
+            stopCriteria.setMaxTimeWithoutImprovement(MAX_SECS_WITHOUT_IMPROVEMENT, TimeUnit.SECONDS);
+        return stopCriteria;
+    }
+
+    private static void runRestarts(BaggingData data, BaggingStopCriteria stopCriteria) {
+        boolean solutionFound = false;
+        for (int k = 0; k < NUM_RESTARTS; k++) {
+            System.out.println("=== Start of ITERATION: " + k + " ===");
+            BaggingSolution randomBaggingSolution = data.createRandomSolution();
+            BaggingLocalSearch search = new BaggingLocalSearch(randomBaggingSolution, stopCriteria, VERBOSE, null);
+            BaggingSolution solution = search.performSearch();
+            System.out.format("Steps: %d (%.0f steps/sec)%n", search.getSteps(), search.getStepsPerSecond());
+
+            if (solution.getSolutionScore() == 0) {
+                printBagOfItems(solution);
+                solutionFound = true;
+                break;
+            }
+            System.out.println("=== End of ITERATION: " + k + " ===");
+        }
+        if (!solutionFound)
+            System.out.println("No Solution Found");
+    }
+
+    private static void runMultiStart(BaggingData data, BaggingStopCriteria stopCriteria) {
+        BaggingMultiStartSearch search = new BaggingMultiStartSearch(data, Runtime.getRuntime().availableProcessors(),
+                stopCriteria, VERBOSE);
+        System.out.println("=== Parallel multi-start with " + search.getNumWorkers() + " workers ===");
+        long start = System.currentTimeMillis();
+        BaggingSolution solution = search.performSearch();
+        long wallTime = System.currentTimeMillis() - start;
+
+        long[] steps = search.getWorkerSteps();
+        double[] stepsPerSecond = search.getWorkerStepsPerSecond();
+        int[] scores = search.getWorkerScores();
+        for (int w = 0; w < steps.length; w++)
+            System.out.format("Worker %d: score %d, %d steps (%.0f steps/sec)%n", w, scores[w], steps[w], stepsPerSecond[w]);
+        System.out.format("Total steps: %d, wall time: %d ms%n", search.getTotalSteps(), wallTime);
+
+        if (solution.getSolutionScore() == 0)
+            printBagOfItems(solution);
+        else
+            System.out.println("No Solution Found");
+    }
+
+    private static void runIslands(BaggingData data, BaggingStopCriteria stopCriteria) {
+        BaggingIslandSearch search = new BaggingIslandSearch(data, Runtime.getRuntime().availableProcessors(),
+                stopCriteria, VERBOSE);
+        System.out.println("=== Island model with " + search.getNumIslands() + " islands ===");
+        long start = System.currentTimeMillis();
+        BaggingSolution solution = search.performSearch();
+        long wallTime = System.currentTimeMillis() - start;
+
+        long[] steps = search.getIslandSteps();
+        long[] immigrants = search.getIslandImmigrants();
+        int[] scores = search.getIslandScores();
+        for (int i = 0; i < steps.length; i++)
+            System.out.format("Island %d: score %d, %d steps, %d immigrants%n", i, scores[i], steps[i], immigrants[i]);
+        System.out.format("Total steps: %d, migrants sent: %d, wall time: %d ms%n", search.getTotalSteps(),
+                search.getNumMigrantsSent(), wallTime);
+
+        if (solution.getSolutionScore() == 0)
+            printBagOfItems(solution);
+        else
+            System.out.println("No Solution Found (best score: " + solution.getSolutionScore() + ")");
+    }
+
+    private static void runTabu(BaggingData data, BaggingStopCriteria stopCriteria) {
+        BaggingTabuSearch search = new BaggingTabuSearch(data.createRandomSolution(), stopCriteria, VERBOSE, null,
+                BaggingTabuSearch.DEFAULT_TABU_TENURE);
+        BaggingSolution solution = search.performSearch();
+        System.out.format("Steps: %d (%.0f steps/sec)%n", search.getSteps(), search.getStepsPerSecond());
+
+        if (solution.getSolutionScore() == 0)
+            printBagOfItems(solution);
+        else
+            System.out.println("No Solution Found (best score: " + solution.getSolutionScore() + ")");
+    }
+
+    private static void runParallelTempering(BaggingData data, BaggingStopCriteria stopCriteria) {
+        int numReplicas = NUM_REPLICAS > 0 ? NUM_REPLICAS : getDefaultNumReplicas();
+        // keep track of the replicas (in order of increasing temperature) to report their statistics
+        List<BaggingReplica> replicas = new ArrayList<>(numReplicas);
+        ParallelTempering<BaggingAssignment> parallelTempering = createParallelTempering(data, numReplicas,
+                stopCriteria, replicas);
+        System.out.format("=== Parallel tempering with %d replicas, temperatures %.3f - %.3f ===%n",
+                numReplicas, replicas.get(0).getTemperature(), replicas.get(numReplicas - 1).getTemperature());
+
+        if (VERBOSE)
+            parallelTempering.addSearchListener(new ProgressSearchListener());
+        parallelTempering.start();
+
+        long steps = parallelTempering.getSteps();
+        for (int i = 0; i < replicas.size(); i++) {
+            BaggingReplica replica = replicas.get(i);
+            // replicas at both ends of the ladder have a neighbour to swap with in every other step only
+            long swapAttempts = (i == 0 || i == replicas.size() - 1) ? (steps + 1) / 2 : steps;
+            System.out.format("Replica %d: temperature %.3f, acceptance rate %.3f, %d swaps (swap rate %.3f)%n",
+                    i, replica.getTemperature(), replica.getAcceptanceRate(), replica.getNumSwaps(),
+                    swapAttempts > 0 ? (double) replica.getNumSwaps() / swapAttempts : 0.0);
+        }
+        long totalMoves = replicas.stream()
+                .mapToLong(r -> r.getTotalAcceptedMoves() + r.getTotalRejectedMoves())
+                .sum();
+        long runtime = parallelTempering.getRuntime();
+        System.out.format("Steps: %d, replica moves: %d (%.0f moves/sec)%n", steps, totalMoves,
+                runtime > 0 ? totalMoves * 1000.0 / runtime : 0.0);
+
+        BaggingAssignment best = parallelTempering.getBestSolution();
+        parallelTempering.dispose();
+        if (best != null && best.getSolution().getSolutionScore() == 0)
+            printBagOfItems(best.getSolution());
+        else
+            System.out.println("No Solution Found"
+                    + (best != null ? " (best score: " + best.getSolution().getSolutionScore() + ")" : ""));
+    }
+
+    /**
+     * Creates a parallel tempering search for the given bagging instance,
+     * with a temperature range scaled by
+     * {@link #computeTemperatureScale(BaggingItems)}. The search stops when
+     * one of the given stop criteria is satisfied.
+     *
+     * @param data the bagging instance
+     * @param numReplicas number of replicas
+     * @param stopCriteria stop criteria of the search
+     * @param replicas list to which the created replicas are added, in order
+     * of increasing temperature; may be {@code null}
+     * @return the parallel tempering search
+     */
+    static ParallelTempering<BaggingAssignment> createParallelTempering(BaggingData data, int numReplicas,
+            BaggingStopCriteria stopCriteria, List<BaggingReplica> replicas) {
+        // set temperature range, scaled according to the expected violations of moving an item
+        double scale = computeTemperatureScale(data.getItems());
+        ParallelTempering<BaggingAssignment> parallelTempering = new ParallelTempering<>(createProblem(data),
+                new BaggingNeighbourhood(), numReplicas, scale * MIN_TEMP_FACTOR, scale * MAX_TEMP_FACTOR,
+                (p, n, t) -> {
+                    BaggingReplica replica = new BaggingReplica(p, n, t);
+                    if (replicas != null)
+                        replicas.add(replica);
+                    return replica;
+                });
+        stopCriteria.addTo(parallelTempering);
+        return parallelTempering;
+    }
+
+    /**
+     * @return the default number of parallel tempering replicas: one per
+     * core, and at least {@value #MIN_REPLICAS}
+     */
+    static int getDefaultNumReplicas() {
+        return Math.max(MIN_REPLICAS, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Computes the temperature scale for parallel tempering on the given
+     * instance: the expected number of violations between an item and the
+     * members of a bag, which is the typical score change of moving an item
+     * in a random assignment.
+     *
+     * @param items the bagging instance
+     * @return the temperature scale, at least 1
+     */
+    static double computeTemperatureScale(BaggingItems items) {
+        int numItems = items.getSizes().length;
+        double itemsPerBag = (double) Math.max(numItems - 1, 0) / Math.max(items.getNumAvailableBags(), 1);
+        // a pair of items counts twice if neither allows the other
+        return Math.max(1.0, 2 * items.getConflictDensity() * itemsPerBag);
+    }
+
+    /**
+     * Reads a bagging instance, either from a binary file (extension
+     * {@code .bin}, see {@link BaggingBinaryFile}) or from a plain text file.
+     *
+     * @param filePath path of the instance file
+     * @return the bagging items
+     * @throws IOException if the file can not be read
+     */
+    public static BaggingItems readInstance(String filePath) throws IOException {
+        // binary instances load without parsing
+        return filePath.endsWith(".bin")
+                ? new BaggingBinaryFile().read(filePath)
+                : new BaggingFileReader().read(filePath);
+    }
+
+    /**
+     * Creates a JAMES problem for the given bagging instance, to be solved
+     * with a {@link BaggingNeighbourhood}. The objective counts the items
+     * sharing a bag with items they do not allow, bags over capacity are
+     * penalized by the overflow, and random solutions are built with
+     * {@link BaggingData#createRandomSolution(java.util.Random)}.
+     *
+     * @param data the bagging instance
+     * @return the bagging problem
+     */
+    public static GenericProblem<BaggingAssignment, BaggingData> createProblem(BaggingData data) {
+        GenericProblem<BaggingAssignment, BaggingData> problem = new GenericProblem<>(data, new BaggingObjective(),
+                (r, d) -> new BaggingAssignment(d.createRandomSolution(r)));
+        problem.addPenalizingConstraint(new BaggingConstraint());
+        return problem;
+    }
+
     public static void printBagOfItems(BaggingSolution randomBaggingSolution) {
-        System.out.println("-----------------------------------------------");
-        System.out.println("Solution Score: " + randomBaggingSolution.getSolutionScore());
-        for (Set<Integer> bagOfItems : randomBaggingSolution.getBagsOfItems()) {
-            System.out.println(bagOfItems);
+        System.out.print(formatBagOfItems(randomBaggingSolution));
+    }
+
+    /**
+     * @param solution a bagging solution
+     * @return the solution score and the items in each bag, one bag per line
+     */
+    public static String formatBagOfItems(BaggingSolution solution) {
+        StringBuilder s = new StringBuilder();
+        String newLine = System.lineSeparator();
+        s.append("-----------------------------------------------").append(newLine);
+        s.append("Solution Score: ").append(solution.getSolutionScore()).append(newLine);
+        for (Set<Integer> bagOfItems : solution.getBagsOfItems()) {
+            s.append(bagOfItems).append(newLine);
         }
+        return s.toString();
     }
 
     private static void printMsg(String msg, boolean shouldPrint) {
@@ -0,0 +1,56 @@
+package com.aoros.bagging.local.search;
+
+import org.jamesframework.core.problems.sol.Solution;
+
+/**
+ * JAMES solution type for the bagging problem: an assignment of items to
+ * bags, backed by a {@link BaggingSolution} that keeps the scores up to date.
+ */
+public class BaggingAssignment extends Solution {
+
+    private final BaggingSolution solution;
+
+    public BaggingAssignment(BaggingSolution solution) {
+        this.solution = solution;
+    }
+
+    public BaggingSolution getSolution() {
+        return solution;
+    }
+
+    @Override
+    public BaggingAssignment copy() {
+        return new BaggingAssignment(new BaggingSolution(solution));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof BaggingAssignment))
+            return false;
+        BaggingSolution other = ((BaggingAssignment) obj).solution;
+        int numItems = solution.getItems().getSizes().length;
+        if (other.getItems().getSizes().length != numItems)
+            return false;
+        for (int itemId = 0; itemId < numItems; itemId++) {
+            if (solution.getBagOfItem(itemId) != other.getBagOfItem(itemId))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        int numItems = solution.getItems().getSizes().length;
+        for (int itemId = 0; itemId < numItems; itemId++)
+            hash = 31 * hash + solution.getBagOfItem(itemId);
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return solution.toString();
+    }
+}
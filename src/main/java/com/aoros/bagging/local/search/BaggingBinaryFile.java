@@ -0,0 +1,165 @@
+package com.aoros.bagging.local.search;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes bagging instances in a compact binary format. All numbers
+ * are little-endian:
+ * <ul>
+ * <li>header: magic number {@code BAGS}, format version, number of bags,
+ * maximum bag capacity and number of items N;</li>
+ * <li>N item names, each as a 2-byte length followed by UTF-8 bytes;</li>
+ * <li>N item sizes (ints);</li>
+ * <li>the packed conflict matrix of {@link BaggingItems} (longs).</li>
+ * </ul>
+ * Loading reads the whole file at once and bulk-copies the sizes and the
+ * matrix, so no inclusivity sets have to be rebuilt from item names.
+ */
+public class BaggingBinaryFile {
+
+    static final int MAGIC = 0x42414753;
+    static final int VERSION = 1;
+
+    /**
+     * Converts a plain text bagging instance to the binary format. Expects two
+     * parameters: (1) the input text file path, (2) the output binary file path.
+     *
+     * @param args array containing the input and output file paths
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: java BaggingBinaryFile <inputfile> <outputfile>");
+            System.exit(1);
+        }
+        try {
+            BaggingItems items = new BaggingFileReader().read(args[0]);
+            new BaggingBinaryFile().write(items, args[1]);
+            System.out.println("Converted " + items.getSizes().length + " items: " + args[0] + " -> " + args[1]);
+        } catch (IOException ex) {
+            System.err.println("Failed to convert file: " + args[0] + " (" + ex.getMessage() + ")");
+            System.exit(2);
+        }
+    }
+
+    public BaggingItems read(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Binary bagging file too large: " + filePath + " (" + size + " bytes)");
+            ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0)
+                    throw new IOException("Unexpected end of file: " + filePath);
+            }
+            buffer.flip();
+            try {
+                return read(buffer, filePath);
+            } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException ex) {
+                throw new IOException("Corrupt binary bagging file: " + filePath, ex);
+            }
+        }
+    }
+
+    private BaggingItems read(ByteBuffer buffer, String filePath) throws IOException {
+        if (buffer.getInt() != MAGIC)
+            throw new IOException("Not a binary bagging file: " + filePath);
+        int version = buffer.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported binary bagging file version " + version + ": " + filePath);
+        int numAvailableBags = buffer.getInt();
+        int maxBagCapacity = buffer.getInt();
+        int numItems = buffer.getInt();
+        if (numAvailableBags < 0 || maxBagCapacity < 0)
+            throw new IOException("Invalid number of bags or bag capacity in " + filePath + ": "
+                    + numAvailableBags + ", " + maxBagCapacity);
+        // every item takes at least a name length and a size: check the count
+        // before allocating anything
+        if (numItems < 0 || (long) numItems * (Short.BYTES + Integer.BYTES) > buffer.remaining())
+            throw new IOException("Invalid number of items in " + filePath + ": " + numItems + " (file has "
+                    + buffer.remaining() + " bytes left after the header)");
+
+        String[] names = new String[numItems];
+        for (int i = 0; i < numItems; i++) {
+            byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(name);
+            names[i] = new String(name, StandardCharsets.UTF_8);
+        }
+        int numWords = (numItems + 63) >>> 6;
+        long matrixLength = (long) numItems * numWords;
+        long expected = (long) numItems * Integer.BYTES + matrixLength * Long.BYTES;
+        if (buffer.remaining() != expected)
+            throw new IOException("Corrupt binary bagging file (" + numItems + " items, expected " + expected
+                    + " bytes of sizes and conflicts, found " + buffer.remaining() + "): " + filePath);
+        int[] sizes = new int[numItems];
+        buffer.asIntBuffer().get(sizes);
+        buffer.position(buffer.position() + numItems * Integer.BYTES);
+        long[] conflictMatrix = new long[(int) matrixLength];
+        buffer.asLongBuffer().get(conflictMatrix);
+        buffer.position(buffer.position() + conflictMatrix.length * Long.BYTES);
+        checkConflictMatrix(conflictMatrix, numItems, numWords, filePath);
+
+        return new BaggingItems(numAvailableBags, maxBagCapacity, names, sizes, conflictMatrix);
+    }
+
+    /**
+     * Checks that no item conflicts with itself and that no bits are set
+     * beyond the last item in any row.
+     */
+    private static void checkConflictMatrix(long[] conflictMatrix, int numItems, int numWords, String filePath)
+            throws IOException {
+        int usedBits = numItems & 63;
+        long paddingMask = usedBits == 0 ? 0L : -1L << usedBits;
+        for (int itemId = 0; itemId < numItems; itemId++) {
+            int row = itemId * numWords;
+            if ((conflictMatrix[row + numWords - 1] & paddingMask) != 0)
+                throw new IOException("Corrupt binary bagging file (conflict beyond the last item in row " + itemId
+                        + "): " + filePath);
+            if ((conflictMatrix[row + (itemId >>> 6)] & (1L << itemId)) != 0)
+                throw new IOException("Corrupt binary bagging file (item " + itemId + " conflicts with itself): "
+                        + filePath);
+        }
+    }
+
+    public void write(BaggingItems items, String filePath) throws IOException {
+        int numItems = items.getSizes().length;
+        byte[][] names = new byte[numItems][];
+        long size = 5 * Integer.BYTES;
+        for (int i = 0; i < numItems; i++) {
+            names[i] = items.getIDToNameMap(i).getBytes(StandardCharsets.UTF_8);
+            if (names[i].length > 0xFFFF)
+                throw new IOException("Item name too long: " + items.getIDToNameMap(i));
+            size += Short.BYTES + names[i].length;
+        }
+        long[] conflictMatrix = items.getConflictMatrix();
+        size += (long) numItems * Integer.BYTES + (long) conflictMatrix.length * Long.BYTES;
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("Too many items for a binary bagging file: " + numItems);
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION)
+                .putInt(items.getNumAvailableBags())
+                .putInt(items.getMaxBagCapacity())
+                .putInt(numItems);
+        for (byte[] name : names) {
+            buffer.putShort((short) name.length);
+            buffer.put(name);
+        }
+        buffer.asIntBuffer().put(items.getSizes());
+        buffer.position(buffer.position() + numItems * Integer.BYTES);
+        buffer.asLongBuffer().put(conflictMatrix);
+        buffer.position(buffer.position() + conflictMatrix.length * Long.BYTES);
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+}
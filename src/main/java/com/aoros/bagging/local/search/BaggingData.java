@@ -1,69 +1,86 @@
 package com.aoros.bagging.local.search;
 
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
 import org.jamesframework.core.problems.datatypes.IntegerIdentifiedData;
 
 public class BaggingData implements IntegerIdentifiedData {
 
-    private final Set<Integer> IDs = new HashSet<>();
-    private final Map<Integer, BaggingSolution> IDsToSolutionMap = new HashMap<>();
     private final BaggingItems items;
 
     public BaggingData(BaggingItems items) {
         this.items = items;
     }
 
+    public BaggingItems getItems() {
+        return items;
+    }
+
     public BaggingSolution createRandomSolution() {
-        Random r = new Random();
+        return createRandomSolution(new Random());
+    }
+
+    /**
+     * Builds a starting solution constructively: items are placed largest
+     * first (equal sizes in random order), each in the bag where it adds the
+     * least to the violation score, i.e. the fewest conflicts with the bag's
+     * current members and no or the smallest capacity overflow. Ties between
+     * bags are broken at random, so repeated calls give different solutions.
+     * Every item is placed in a single pass, so this always terminates, even
+     * on instances where not all items fit: an item that fits in no bag falls
+     * back to the bag where the overflow plus conflicts cost the least, and
+     * the local search has to repair it.
+     *
+     * @param r source of randomness
+     * @return a near-feasible starting solution
+     * @throws IllegalStateException if there are items but no bags
+     */
+    public BaggingSolution createRandomSolution(Random r) {
+        int numItems = items.getSizes().length;
+        int numBags = items.getNumAvailableBags();
+        int[] sizes = items.getSizes();
+
+        // shuffle, then stable sort by decreasing size
+        Integer[] order = new Integer[numItems];
+        for (int i = 0; i < numItems; i++) {
+            int j = r.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(sizes[b], sizes[a]));
 
         BaggingSolution solution = new BaggingSolution(items);
-        for (Integer itemId : items.getItemIds()) {
-            boolean done = false;
-            while (!done) {
-                int bagNumber = r.nextInt(items.getNumAvailableBags());
-                int itemSize = items.getSizes()[itemId];
-                if (solution.willItemFitInBag(bagNumber, itemSize)) {
-                    solution.addItemToBag(bagNumber, itemId);
-                    done = true;
+        if (numBags == 0) {
+            if (numItems > 0)
+                throw new IllegalStateException("Can't bag " + numItems + " items without any bags");
+            return solution;
+        }
+        int[] bestBags = new int[numBags];
+        for (int itemId : order) {
+            int bestDelta = Integer.MIN_VALUE;
+            int numBestBags = 0;
+            for (int bagNumber = 0; bagNumber < numBags; bagNumber++) {
+                int delta = solution.getAddItemDelta(bagNumber, itemId);
+                if (delta > bestDelta) {
+                    bestDelta = delta;
+                    numBestBags = 0;
                 }
+                if (delta == bestDelta)
+                    bestBags[numBestBags++] = bagNumber;
             }
+            // when the item fits nowhere, bestDelta includes the smallest
+            // overflow, so the item still goes to the least bad bag
+            solution.addItemToBag(bestBags[r.nextInt(numBestBags)], itemId);
         }
         return solution;
     }
 
-    public void createRandomSolutions(int numToCreate) {
-        for (int i = 0; i < numToCreate; i++) {
-            IDsToSolutionMap.put(i, createRandomSolution());
-            IDs.add(i);
-        }
-    }
-
+    /**
+     * @return the IDs of the items to be bagged
+     */
     @Override
     public Set<Integer> getIDs() {
-        return IDs;
-    }
-
-    public Map<Integer, BaggingSolution> getIDsToSolutionMap() {
-        return IDsToSolutionMap;
-    }
-
-    public void printOutBaggingDataSolutionScores() {
-        for (Entry entry : IDsToSolutionMap.entrySet()) {
-            Integer id = (Integer) entry.getKey();
-            BaggingSolution solution = (BaggingSolution) entry.getValue();
-
-            System.out.println("id: " + id + "   solution score: " + solution.getSolutionScore() + "   bag of items: " + Arrays.toString(solution.getBagsOfItems()));
-            if (solution.getSolutionScore() == 0) {
-                for (Integer _id : items.getItemIds())
-                    System.out.println("id: " + _id + "   item name: " + items.getIDToNameMap(_id));
-                break;
-            }
-        }
+        return items.getItemIds();
     }
 }
@@ -0,0 +1,213 @@
+package com.aoros.bagging.local.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jamesframework.examples.util.MigrationChannel;
+
+/**
+ * Island model of {@link BaggingLocalSearch} instances: like
+ * {@link BaggingMultiStartSearch}, every island runs concurrently from its own
+ * random starting solution, but the islands periodically exchange their best
+ * solutions through a {@link MigrationChannel}.
+ * <p>
+ * Each island searches in epochs of at most {@link #getMigrationInterval()}
+ * milliseconds or {@link #getMigrationSteps()} steps. After every epoch it
+ * sends its best solution to the next island if it improved, and continues
+ * from the migrant it received if that one beats its current solution. All
+ * islands stop as soon as one of them reaches the target score or meets one of
+ * the other stop criteria; those are checked between epochs, so they may be
+ * exceeded by up to one epoch.
+ */
+public class BaggingIslandSearch {
+
+    public static final long DEFAULT_MIGRATION_INTERVAL_MILLIS = 100;
+
+    private final BaggingData data;
+    private final int numIslands;
+    private final BaggingStopCriteria stopCriteria;
+    private final boolean verbose;
+    private long migrationIntervalMillis = DEFAULT_MIGRATION_INTERVAL_MILLIS;
+    private long migrationSteps = Long.MAX_VALUE;
+    private final AtomicBoolean stopFlag = new AtomicBoolean(false);
+    private MigrationChannel<BaggingSolution> channel;
+    private boolean solutionFound;
+    private final long[] islandSteps;
+    private final long[] islandImmigrants;
+    private final int[] islandScores;
+
+    public BaggingIslandSearch(BaggingData data, int numIslands, BaggingStopCriteria stopCriteria, boolean verbose) {
+        if (numIslands <= 0)
+            throw new IllegalArgumentException("Number of islands should be strictly positive: " + numIslands);
+        this.data = data;
+        this.numIslands = numIslands;
+        this.stopCriteria = stopCriteria;
+        this.verbose = verbose;
+        this.islandSteps = new long[numIslands];
+        this.islandImmigrants = new long[numIslands];
+        this.islandScores = new int[numIslands];
+    }
+
+    /**
+     * @param interval maximum duration of an epoch, after which the island
+     * migrates
+     * @param unit time unit of the interval
+     */
+    public void setMigrationInterval(long interval, TimeUnit unit) {
+        if (interval <= 0)
+            throw new IllegalArgumentException("Migration interval should be strictly positive: " + interval);
+        this.migrationIntervalMillis = Math.max(1, unit.toMillis(interval));
+    }
+
+    /**
+     * @return maximum duration of an epoch (in milliseconds)
+     */
+    public long getMigrationInterval() {
+        return migrationIntervalMillis;
+    }
+
+    /**
+     * @param steps maximum number of steps of an epoch, after which the island
+     * migrates; unlimited by default
+     */
+    public void setMigrationSteps(long steps) {
+        if (steps <= 0)
+            throw new IllegalArgumentException("Migration steps should be strictly positive: " + steps);
+        this.migrationSteps = steps;
+    }
+
+    public long getMigrationSteps() {
+        return migrationSteps;
+    }
+
+    /**
+     * Runs all islands until one of them reaches the target score or meets one
+     * of the other stop criteria.
+     *
+     * @return the best solution found by any of the islands
+     */
+    public BaggingSolution performSearch() {
+        stopFlag.set(false);
+        channel = new MigrationChannel<>(numIslands);
+        BaggingStopCriteria epochCriteria = createEpochCriteria();
+        ExecutorService pool = Executors.newFixedThreadPool(numIslands);
+        try {
+            List<Future<BaggingSolution>> futures = new ArrayList<>();
+            for (int i = 0; i < numIslands; i++) {
+                final int island = i;
+                futures.add(pool.submit(() -> runIsland(island, epochCriteria)));
+            }
+            BaggingSolution best = null;
+            for (Future<BaggingSolution> future : futures) {
+                BaggingSolution solution = future.get();
+                if (best == null || solution.getSolutionScore() > best.getSolutionScore())
+                    best = solution;
+            }
+            solutionFound = best.getSolutionScore() >= stopCriteria.getTargetScore();
+            return best;
+        } catch (InterruptedException ex) {
+            stopFlag.set(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for bagging islands", ex);
+        } catch (ExecutionException ex) {
+            stopFlag.set(true);
+            throw new IllegalStateException("Bagging island failed", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private BaggingStopCriteria createEpochCriteria() {
+        BaggingStopCriteria epochCriteria = new BaggingStopCriteria(migrationIntervalMillis, TimeUnit.MILLISECONDS);
+        if (migrationSteps != Long.MAX_VALUE)
+            epochCriteria.setMaxSteps(migrationSteps);
+        epochCriteria.setTargetScore(stopCriteria.getTargetScore());
+        epochCriteria.setCheckInterval(stopCriteria.getCheckInterval());
+        return epochCriteria;
+    }
+
+    private BaggingSolution runIsland(int island, BaggingStopCriteria epochCriteria) {
+        BaggingSolution current = data.createRandomSolution();
+        BaggingSolution best = new BaggingSolution(current);
+        BaggingStopCriteria.Tracker tracker = stopCriteria.start(current.getSolutionScore());
+        islandSteps[island] = 0;
+        islandImmigrants[island] = 0;
+        int sentScore = Integer.MIN_VALUE;
+        while (!stopFlag.get()) {
+            // the search continues from the current solution, modifying it in place
+            BaggingLocalSearch search = new BaggingLocalSearch(current, epochCriteria, verbose, stopFlag);
+            BaggingSolution epochBest = search.performSearch();
+            islandSteps[island] += search.getSteps();
+            if (epochBest.getSolutionScore() > best.getSolutionScore())
+                best = epochBest;
+            if (tracker.shouldStop(islandSteps[island], best.getSolutionScore())) {
+                stopFlag.set(true);
+                break;
+            }
+            // emigrate: send a copy of the best solution if it improved
+            if (best.getSolutionScore() > sentScore) {
+                sentScore = best.getSolutionScore();
+                channel.send(island, new BaggingSolution(best), sentScore);
+            }
+            // immigrate: continue from the received migrant if it is better
+            MigrationChannel.Migrant<BaggingSolution> migrant = channel.receive(island);
+            if (migrant != null && migrant.getScore() > current.getSolutionScore()) {
+                current = new BaggingSolution(migrant.getSolution());
+                islandImmigrants[island]++;
+            }
+        }
+        islandScores[island] = best.getSolutionScore();
+        return best;
+    }
+
+    public int getNumIslands() {
+        return numIslands;
+    }
+
+    /**
+     * @return true if the last run reached the target score
+     */
+    public boolean isSolutionFound() {
+        return solutionFound;
+    }
+
+    /**
+     * @return number of steps performed by each island in the last run
+     */
+    public long[] getIslandSteps() {
+        return islandSteps.clone();
+    }
+
+    /**
+     * @return number of migrants each island continued from in the last run
+     */
+    public long[] getIslandImmigrants() {
+        return islandImmigrants.clone();
+    }
+
+    /**
+     * @return best score of each island in the last run
+     */
+    public int[] getIslandScores() {
+        return islandScores.clone();
+    }
+
+    /**
+     * @return number of solutions sent by all islands in the last run
+     */
+    public long getNumMigrantsSent() {
+        return channel != null ? channel.getNumSent() : 0;
+    }
+
+    public long getTotalSteps() {
+        long total = 0;
+        for (long steps : islandSteps)
+            total += steps;
+        return total;
+    }
+}
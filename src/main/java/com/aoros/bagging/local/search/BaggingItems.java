@@ -5,28 +5,39 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.jamesframework.examples.util.IntRangeSet;
 
 public class BaggingItems {
 
     private final int numAvailableBags, maxBagCapacity;
     private final Map<String, Integer> nameToIDMap = new HashMap<>();
 	private final Map<Integer, String> _IDToNameMap = new HashMap<>();
-    private final Set<Integer> IDs = new HashSet<>();
+    private final Set<Integer> IDs;
     private final int[] sizes;
-    private final Map<Integer, Set<Integer>> inclusivityMap = new HashMap<>();
-    private final Set<Integer>[] inclusivitySets;
+    // derived from the conflict matrix on first access when the items are not read from text
+    private Map<Integer, Set<Integer>> inclusivityMap;
+    private Set<Integer>[] inclusivitySets;
+    // packed conflict matrix: bit j of row i is set if item i does not allow item j in its bag
+    private final int numWords;
+    private final long[] conflictMatrix;
+    // transposed conflict matrix: bit j of row i is set if item j does not allow item i in its bag
+    private final long[] conflictedByMatrix;
 
     public BaggingItems(int numAvailableBags, int maxBagCapacity, List<GroceryItem> groceryItems) {
         this.numAvailableBags = numAvailableBags;
         this.maxBagCapacity = maxBagCapacity;
         sizes = new int[groceryItems.size()];
+        IDs = new IntRangeSet(groceryItems.size());
+        inclusivityMap = new HashMap<>();
         inclusivitySets = new Set[groceryItems.size()];
+        numWords = (groceryItems.size() + 63) >>> 6;
+        conflictMatrix = new long[groceryItems.size() * numWords];
+        conflictedByMatrix = new long[groceryItems.size() * numWords];
 
         int i = 0;
         for (GroceryItem item : groceryItems) {
             nameToIDMap.put(item.getItemName(), i);
 			_IDToNameMap.put(i, item.getItemName());
-            IDs.add(i);
             sizes[i] = item.getSize();
             i++;
         }
@@ -34,6 +45,43 @@ public class BaggingItems {
         buildInclusivityMap(groceryItems);
     }
 
+    /**
+     * Creates the items from their names, sizes and packed conflict matrix
+     * (see {@link #getConflictMatrix()}), as stored in a binary instance file.
+     */
+    BaggingItems(int numAvailableBags, int maxBagCapacity, String[] names, int[] sizes, long[] conflictMatrix) {
+        if (names.length != sizes.length)
+            throw new IllegalArgumentException("Got " + names.length + " item names but " + sizes.length + " sizes");
+        this.numAvailableBags = numAvailableBags;
+        this.maxBagCapacity = maxBagCapacity;
+        this.sizes = sizes;
+        IDs = new IntRangeSet(sizes.length);
+        numWords = (sizes.length + 63) >>> 6;
+        if (conflictMatrix.length != sizes.length * numWords)
+            throw new IllegalArgumentException("Conflict matrix has " + conflictMatrix.length
+                    + " words, expected " + sizes.length * numWords);
+        this.conflictMatrix = conflictMatrix;
+        conflictedByMatrix = new long[sizes.length * numWords];
+
+        for (int i = 0; i < names.length; i++) {
+            nameToIDMap.put(names[i], i);
+			_IDToNameMap.put(i, names[i]);
+        }
+
+        // transpose the conflict matrix, visiting set bits only
+        for (int itemId = 0; itemId < sizes.length; itemId++) {
+            int row = itemId * numWords;
+            for (int w = 0; w < numWords; w++) {
+                long word = conflictMatrix[row + w];
+                while (word != 0) {
+                    int other = (w << 6) + Long.numberOfTrailingZeros(word);
+                    conflictedByMatrix[other * numWords + (itemId >>> 6)] |= 1L << itemId;
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
     private void buildInclusivityMap(List<GroceryItem> groceryItems) {
         for (GroceryItem item : groceryItems) {
             Integer currentItemID = nameToIDMap.get(item.getItemName());
@@ -58,9 +106,73 @@ public class BaggingItems {
 
             inclusivitySets[currentItemID] = includeIDsSet;
             inclusivityMap.put(currentItemID, includeIDsSet);
+            buildConflictRow(currentItemID, includeIDsSet);
         }
     }
 
+    private void buildConflictRow(int itemId, Set<Integer> includeIDsSet) {
+        int row = itemId * numWords;
+        for (int other = 0; other < sizes.length; other++) {
+            if (!includeIDsSet.contains(other)) {
+                conflictMatrix[row + (other >>> 6)] |= 1L << other;
+                conflictedByMatrix[other * numWords + (itemId >>> 6)] |= 1L << itemId;
+            }
+        }
+    }
+
+    /**
+     * Counts the violations caused by putting the given item in a bag with the
+     * items in the given bag bitset: the members the item does not allow plus
+     * the members that do not allow the item. The item itself is never counted.
+     *
+     * @param itemId the item being added to or removed from the bag
+     * @param bagBits bitset of the items in the bag (see {@link #getNumWords()})
+     * @return number of violations between the item and the bag members
+     */
+    public int countPairConflicts(int itemId, long[] bagBits) {
+        int row = itemId * numWords;
+        int count = 0;
+        for (int w = 0; w < numWords; w++)
+            count += Long.bitCount(conflictMatrix[row + w] & bagBits[w])
+                    + Long.bitCount(conflictedByMatrix[row + w] & bagBits[w]);
+        return count;
+    }
+
+    /**
+     * Counts the violations between two items if they share a bag: 0, 1 if
+     * one of them does not allow the other, or 2 if neither allows the other.
+     *
+     * @param itemId1 the first item
+     * @param itemId2 the second item
+     * @return number of violations between the two items
+     */
+    public int countPairConflicts(int itemId1, int itemId2) {
+        long bit1 = conflictMatrix[itemId1 * numWords + (itemId2 >>> 6)] >>> itemId2 & 1L;
+        long bit2 = conflictMatrix[itemId2 * numWords + (itemId1 >>> 6)] >>> itemId1 & 1L;
+        return (int) (bit1 + bit2);
+    }
+
+    /**
+     * @return fraction of the ordered pairs of different items (i, j) for
+     * which item i does not allow item j in its bag
+     */
+    public double getConflictDensity() {
+        long numPairs = (long) sizes.length * (sizes.length - 1);
+        if (numPairs == 0)
+            return 0.0;
+        long numConflicts = 0;
+        for (long word : conflictMatrix)
+            numConflicts += Long.bitCount(word);
+        return (double) numConflicts / numPairs;
+    }
+
+    /**
+     * @return number of 64-bit words in a bitset covering all items
+     */
+    public int getNumWords() {
+        return numWords;
+    }
+
     public Set<Integer> getItemIds() {
         return IDs;
     }
@@ -81,14 +193,41 @@ public class BaggingItems {
         return sizes;
     }
 
-    public Map<Integer, Set<Integer>> getInclusivityMap() {
+    public synchronized Map<Integer, Set<Integer>> getInclusivityMap() {
+        if (inclusivityMap == null)
+            buildInclusivitySetsFromConflicts();
         return inclusivityMap;
     }
 
-    public Set<Integer>[] getInclusivitySets() {
+    public synchronized Set<Integer>[] getInclusivitySets() {
+        if (inclusivitySets == null)
+            buildInclusivitySetsFromConflicts();
         return inclusivitySets;
     }
 
+    private void buildInclusivitySetsFromConflicts() {
+        inclusivityMap = new HashMap<>();
+        inclusivitySets = new Set[sizes.length];
+        for (int itemId = 0; itemId < sizes.length; itemId++) {
+            int row = itemId * numWords;
+            Set<Integer> includeIDsSet = new HashSet<>();
+            for (int other = 0; other < sizes.length; other++) {
+                if ((conflictMatrix[row + (other >>> 6)] & (1L << other)) == 0)
+                    includeIDsSet.add(other);
+            }
+            inclusivitySets[itemId] = includeIDsSet;
+            inclusivityMap.put(itemId, includeIDsSet);
+        }
+    }
+
+    /**
+     * @return the packed conflict matrix: {@link #getNumWords()} words per
+     * item, bit j of row i is set if item i does not allow item j in its bag
+     */
+    long[] getConflictMatrix() {
+        return conflictMatrix;
+    }
+
 	public String getIDToNameMap(int id)
 	{
 		return _IDToNameMap.get(id);
@@ -1,110 +1,167 @@
 package com.aoros.bagging.local.search;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
-import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jamesframework.examples.util.AsyncProgressSink;
 
-public class BaggingLocalSearch {
+public class BaggingLocalSearch implements BaggingSearch {
 
-    private BaggingSolution solution;
-    private final int timeLimitInSecs;
+    private final BaggingSolution solution;
+    private final BaggingStopCriteria stopCriteria;
     private final Random r = new Random();
     private final boolean verbose;
+    // sink for verbose output, null if not verbose
+    private final AsyncProgressSink progress;
+    // optional flag shared with other searches; the search stops once it is set
+    private final AtomicBoolean stopFlag;
+    // candidate bags sharing the best score in the current step (reused every step)
+    private final int[] bestBags;
+    private BaggingSolution bestSolution;
+    private long steps = 0;
+    private long runtimeInMillis = 0;
+    // last applied move, kept for undo
+    private int lastMovedItemId = -1;
+    private int lastFromBag = -1;
+    private int lastToBag = -1;
 
     public BaggingLocalSearch(BaggingSolution startingSolution, int timeLimitInSecs, boolean verbose) {
+        this(startingSolution, timeLimitInSecs, verbose, null);
+    }
+
+    public BaggingLocalSearch(BaggingSolution startingSolution, int timeLimitInSecs, boolean verbose, AtomicBoolean stopFlag) {
+        this(startingSolution, new BaggingStopCriteria(timeLimitInSecs, TimeUnit.SECONDS), verbose, stopFlag);
+    }
+
+    public BaggingLocalSearch(BaggingSolution startingSolution, BaggingStopCriteria stopCriteria, boolean verbose,
+            AtomicBoolean stopFlag) {
         this.solution = startingSolution;
-        this.timeLimitInSecs = timeLimitInSecs;
+        this.stopCriteria = stopCriteria;
         this.verbose = verbose;
+        this.progress = verbose ? AsyncProgressSink.getDefault() : null;
+        this.stopFlag = stopFlag;
+        this.bestBags = new int[startingSolution.getNumBags()];
     }
 
+    /**
+     * Runs the search until one of the stop criteria is satisfied or the stop
+     * flag is set. When the target score is reached, the stop flag is set.
+     * The starting solution is modified in place (see
+     * {@link #getCurrentSolution()}).
+     *
+     * @return a copy of the best solution found
+     */
+    @Override
     public BaggingSolution performSearch() {
-        long startTimer = System.currentTimeMillis();
+        long startTimer = System.nanoTime();
+        bestSolution = new BaggingSolution(solution);
+        BaggingStopCriteria.Tracker tracker = stopCriteria.start(solution.getSolutionScore());
         while (true) {
-            if (verbose)
-                Bagging.printBagOfItems(solution);
-
-            if (solution.getSolutionScore() == 0)
+            // verbose output is rate-limited: the bags are only formatted when
+            // the progress sink is about to write
+            if (verbose && progress.wantsUpdate())
+                progress.update(this, "", Bagging.formatBagOfItems(solution));
+
+            int score = solution.getSolutionScore();
+            if (tracker.shouldStop(steps, score)) {
+                if (stopFlag != null && tracker.isTargetReached(score))
+                    stopFlag.set(true);
+                break;
+            }
+            if (stopFlag != null && stopFlag.get())
                 break;
 
             int randBagNumber = pickOneBagAtRandom();
-            int randItemIdFromRandBag = removeOneItemFromRandomBag(randBagNumber);
-            List<BaggingSolution> nextMoveSolutions = getAllNextMoveSolutions(randBagNumber, randItemIdFromRandBag);
-            List<BaggingSolution> lowestScoresSolutions = findLowestScoreSolutions(nextMoveSolutions);
-            copyNextMoveSolution(lowestScoresSolutions);
-
-            //    if timer > timeLimit
-            long endTimer = System.currentTimeMillis();
-            long durationInSecs = (endTimer - startTimer) / 1000;
-            if (durationInSecs >= timeLimitInSecs) {
-                break;
-            }
+            int randItemIdFromRandBag = pickOneItemFromRandomBag(randBagNumber);
+            int nextBagNumber = findBestNextBag(randBagNumber, randItemIdFromRandBag);
+            if (nextBagNumber >= 0)
+                applyMove(randItemIdFromRandBag, randBagNumber, nextBagNumber);
+            steps++;
         }
+        runtimeInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimer);
+        if (verbose)
+            progress.flush();
+
+        return bestSolution;
+    }
 
+    /**
+     * @return the solution the search is currently at, which may be worse
+     * than the best solution returned by {@link #performSearch()}
+     */
+    public BaggingSolution getCurrentSolution() {
         return solution;
     }
 
+    /**
+     * Reverts the last move applied by this search, if any.
+     */
+    public void undoLastMove() {
+        if (lastMovedItemId < 0)
+            return;
+        solution.moveItem(lastMovedItemId, lastToBag, lastFromBag);
+        lastMovedItemId = -1;
+    }
+
+    @Override
+    public long getSteps() {
+        return steps;
+    }
+
+    public long getRuntimeInMillis() {
+        return runtimeInMillis;
+    }
+
+    @Override
+    public double getStepsPerSecond() {
+        return runtimeInMillis > 0 ? steps * 1000.0 / runtimeInMillis : 0.0;
+    }
+
     private int pickOneBagAtRandom() {
         //    pick one bag at random from nextSolution
         int randBagNumber = -1;
         boolean bagHasItems = false;
         while (!bagHasItems) {
-            randBagNumber = r.nextInt(solution.getBagsOfItems().length);
-            if (solution.getBagsOfItems()[randBagNumber].size() > 0)
+            randBagNumber = r.nextInt(solution.getNumBags());
+            if (solution.getNumItemsInBag(randBagNumber) > 0)
                 bagHasItems = true;
         }
         return randBagNumber;
     }
 
-    private int removeOneItemFromRandomBag(int randBagNumber) {
-        //    remove one item from bag at random
-        Set<Integer> randBagItemIds = solution.getBagsOfItems()[randBagNumber];
-        int randItemIdFromRandBag = r.nextInt(randBagItemIds.size());
-        Integer[] integerArray = new Integer[randBagItemIds.size()];
-        Integer[] randBagItemsIdsArray = randBagItemIds.toArray(integerArray);
-
-        solution.removeItemFromBag(randBagNumber, randBagItemsIdsArray[randItemIdFromRandBag]);
-
-        return randBagItemsIdsArray[randItemIdFromRandBag];
+    private int pickOneItemFromRandomBag(int randBagNumber) {
+        //    pick one item from bag at random
+        int randIndex = r.nextInt(solution.getNumItemsInBag(randBagNumber));
+        return solution.getItemInBag(randBagNumber, randIndex);
     }
 
-    private List<BaggingSolution> getAllNextMoveSolutions(int randBagNumber, int randItemIdFromRandBag) {
-        //    for each bag in bagsOfItems
-        //       put item into each bag -> as new solution
-        List<BaggingSolution> nextMoveSolutions = new ArrayList<>();
-        for (int i = 0; i < solution.getBagsOfItems().length; i++) {
-            BaggingSolution nextMoveSolution = new BaggingSolution(solution);
-            if (randBagNumber != i) {
-                int itemSize = solution.getItems().getSizes()[i];
-                nextMoveSolution.addItemToBag(i, randItemIdFromRandBag);
-                nextMoveSolutions.add(nextMoveSolution);
+    private int findBestNextBag(int randBagNumber, int randItemIdFromRandBag) {
+        //    for each other bag, peek at the score of moving the item there
+        //    and keep the bag(s) with the highest resulting score
+        int bestDelta = Integer.MIN_VALUE;
+        int numBestBags = 0;
+        for (int i = 0; i < bestBags.length; i++) {
+            if (randBagNumber == i)
+                continue;
+            int delta = solution.getMoveItemDelta(randItemIdFromRandBag, randBagNumber, i);
+            if (delta > bestDelta) {
+                bestDelta = delta;
+                numBestBags = 0;
             }
+            if (delta == bestDelta)
+                bestBags[numBestBags++] = i;
         }
-        return nextMoveSolutions;
+        if (numBestBags == 0)
+            return -1;
+        return bestBags[r.nextInt(numBestBags)];
     }
 
-    private List<BaggingSolution> findLowestScoreSolutions(List<BaggingSolution> nextMoveSolutions) {
-        //    select lowest score(s) from new solutions and make that the nextSolution
-        int lowestScore = -1000000000;
-        for (BaggingSolution nextMoveSolution : nextMoveSolutions) {
-            lowestScore = nextMoveSolution.getSolutionScore() > lowestScore ? nextMoveSolution.getSolutionScore() : lowestScore;
-        }
-        List<BaggingSolution> lowestScoresSolutions = new ArrayList<>();
-        for (BaggingSolution nextMoveSolution : nextMoveSolutions) {
-            if (lowestScore == nextMoveSolution.getSolutionScore()) {
-                lowestScoresSolutions.add(nextMoveSolution);
-            }
-        }
-        return lowestScoresSolutions;
-    }
-
-    private void copyNextMoveSolution(List<BaggingSolution> lowestScoresSolutions) {
-        // Copy next solution to solution
-        if (lowestScoresSolutions.size() > 0) {
-            int randNextSolution = r.nextInt(lowestScoresSolutions.size());
-            solution = new BaggingSolution(lowestScoresSolutions.get(randNextSolution));
-        } else if (lowestScoresSolutions.size() == 1) {
-            solution = new BaggingSolution(lowestScoresSolutions.get(0));
-        }
+    private void applyMove(int itemId, int fromBag, int toBag) {
+        solution.moveItem(itemId, fromBag, toBag);
+        lastMovedItemId = itemId;
+        lastFromBag = fromBag;
+        lastToBag = toBag;
+        if (solution.getSolutionScore() > bestSolution.getSolutionScore())
+            bestSolution = new BaggingSolution(solution);
     }
 }
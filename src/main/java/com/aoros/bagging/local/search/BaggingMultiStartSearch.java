@@ -0,0 +1,131 @@
+package com.aoros.bagging.local.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs several independent {@link BaggingLocalSearch} instances concurrently,
+ * each from its own random starting solution. All workers stop as soon as one
+ * of them reaches the target score (0 by default).
+ */
+public class BaggingMultiStartSearch {
+
+    private final BaggingData data;
+    private final int numWorkers;
+    private final BaggingStopCriteria stopCriteria;
+    private final boolean verbose;
+    // set by the worker that reaches the target score, or to abort the run
+    private final AtomicBoolean stopFlag = new AtomicBoolean(false);
+    private boolean solutionFound;
+    private final long[] workerSteps;
+    private final double[] workerStepsPerSecond;
+    private final int[] workerScores;
+
+    public BaggingMultiStartSearch(BaggingData data, int timeLimitInSecs, boolean verbose) {
+        this(data, Runtime.getRuntime().availableProcessors(), timeLimitInSecs, verbose);
+    }
+
+    public BaggingMultiStartSearch(BaggingData data, int numWorkers, int timeLimitInSecs, boolean verbose) {
+        this(data, numWorkers, new BaggingStopCriteria(timeLimitInSecs, TimeUnit.SECONDS), verbose);
+    }
+
+    public BaggingMultiStartSearch(BaggingData data, int numWorkers, BaggingStopCriteria stopCriteria, boolean verbose) {
+        if (numWorkers <= 0)
+            throw new IllegalArgumentException("Number of workers should be strictly positive: " + numWorkers);
+        this.data = data;
+        this.numWorkers = numWorkers;
+        this.stopCriteria = stopCriteria;
+        this.verbose = verbose;
+        this.workerSteps = new long[numWorkers];
+        this.workerStepsPerSecond = new double[numWorkers];
+        this.workerScores = new int[numWorkers];
+    }
+
+    /**
+     * Runs all workers until one reaches the target score, or each of them
+     * has met one of the other stop criteria.
+     *
+     * @return the best solution found by any of the workers
+     */
+    public BaggingSolution performSearch() {
+        stopFlag.set(false);
+        solutionFound = false;
+        ExecutorService pool = Executors.newFixedThreadPool(numWorkers);
+        try {
+            List<Future<BaggingSolution>> futures = new ArrayList<>();
+            for (int w = 0; w < numWorkers; w++) {
+                final int worker = w;
+                futures.add(pool.submit(() -> runWorker(worker)));
+            }
+            BaggingSolution best = null;
+            for (Future<BaggingSolution> future : futures) {
+                BaggingSolution solution = future.get();
+                if (best == null || solution.getSolutionScore() > best.getSolutionScore())
+                    best = solution;
+            }
+            solutionFound = best.getSolutionScore() >= stopCriteria.getTargetScore();
+            return best;
+        } catch (InterruptedException ex) {
+            stopFlag.set(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for bagging workers", ex);
+        } catch (ExecutionException ex) {
+            stopFlag.set(true);
+            throw new IllegalStateException("Bagging worker failed", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private BaggingSolution runWorker(int worker) {
+        BaggingSolution start = data.createRandomSolution();
+        BaggingLocalSearch search = new BaggingLocalSearch(start, stopCriteria, verbose, stopFlag);
+        BaggingSolution solution = search.performSearch();
+        workerSteps[worker] = search.getSteps();
+        workerStepsPerSecond[worker] = search.getStepsPerSecond();
+        workerScores[worker] = solution.getSolutionScore();
+        return solution;
+    }
+
+    public int getNumWorkers() {
+        return numWorkers;
+    }
+
+    /**
+     * @return true if the last run reached the target score
+     */
+    public boolean isSolutionFound() {
+        return solutionFound;
+    }
+
+    /**
+     * @return number of steps performed by each worker in the last run
+     */
+    public long[] getWorkerSteps() {
+        return workerSteps.clone();
+    }
+
+    public double[] getWorkerStepsPerSecond() {
+        return workerStepsPerSecond.clone();
+    }
+
+    /**
+     * @return final score of each worker's solution in the last run
+     */
+    public int[] getWorkerScores() {
+        return workerScores.clone();
+    }
+
+    public long getTotalSteps() {
+        long total = 0;
+        for (long steps : workerSteps)
+            total += steps;
+        return total;
+    }
+}
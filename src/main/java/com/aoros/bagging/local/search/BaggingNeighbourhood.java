@@ -0,0 +1,87 @@
+package com.aoros.bagging.local.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.jamesframework.core.search.neigh.Move;
+import org.jamesframework.core.search.neigh.Neighbourhood;
+
+/**
+ * Neighbourhood of a bag assignment consisting of all moves of one item to
+ * another bag ({@link ItemReassignMove}) and all exchanges of two items in
+ * different bags ({@link ItemSwapMove}). Swaps keep the bag sizes intact when
+ * items have equal sizes, so they can repair conflicts in bags that are full.
+ */
+public class BaggingNeighbourhood implements Neighbourhood<BaggingAssignment> {
+
+    public static final double DEFAULT_SWAP_PROBABILITY = 0.5;
+
+    // probability that a random move is a swap instead of a reassignment
+    private final double swapProbability;
+
+    public BaggingNeighbourhood() {
+        this(DEFAULT_SWAP_PROBABILITY);
+    }
+
+    public BaggingNeighbourhood(double swapProbability) {
+        if (swapProbability < 0.0 || swapProbability > 1.0)
+            throw new IllegalArgumentException("Swap probability should be in [0, 1]: " + swapProbability);
+        this.swapProbability = swapProbability;
+    }
+
+    /**
+     * Generates a random swap with the configured probability, or else a
+     * random reassignment. Returns {@code null} if there are no moves, i.e.
+     * if there is only one bag or no item is in a bag.
+     *
+     * @param assignment the current assignment
+     * @param rnd source of randomness
+     * @return a random move, or {@code null}
+     */
+    @Override
+    public Move<BaggingAssignment> getRandomMove(BaggingAssignment assignment, Random rnd) {
+        BaggingSolution solution = assignment.getSolution();
+        int numBags = solution.getNumBags();
+        int numItems = solution.getItems().getSizes().length;
+        if (numBags < 2 || numItems == 0)
+            return null;
+        int itemId = rnd.nextInt(numItems);
+        int fromBag = solution.getBagOfItem(itemId);
+        if (fromBag < 0)
+            return null;
+        // random other bag
+        int toBag = rnd.nextInt(numBags - 1);
+        if (toBag >= fromBag)
+            toBag++;
+        if (rnd.nextDouble() < swapProbability && solution.getNumItemsInBag(toBag) > 0) {
+            int otherItemId = solution.getItemInBag(toBag, rnd.nextInt(solution.getNumItemsInBag(toBag)));
+            return new ItemSwapMove(itemId, otherItemId);
+        }
+        return new ItemReassignMove(itemId, fromBag, toBag);
+    }
+
+    @Override
+    public List<Move<BaggingAssignment>> getAllMoves(BaggingAssignment assignment) {
+        BaggingSolution solution = assignment.getSolution();
+        int numBags = solution.getNumBags();
+        int numItems = solution.getItems().getSizes().length;
+        List<Move<BaggingAssignment>> moves = new ArrayList<>();
+        for (int itemId = 0; itemId < numItems; itemId++) {
+            int fromBag = solution.getBagOfItem(itemId);
+            if (fromBag < 0)
+                continue;
+            for (int toBag = 0; toBag < numBags; toBag++) {
+                if (toBag != fromBag)
+                    moves.add(new ItemReassignMove(itemId, fromBag, toBag));
+            }
+            if (swapProbability > 0.0) {
+                for (int otherItemId = itemId + 1; otherItemId < numItems; otherItemId++) {
+                    int otherBag = solution.getBagOfItem(otherItemId);
+                    if (otherBag >= 0 && otherBag != fromBag)
+                        moves.add(new ItemSwapMove(itemId, otherItemId));
+                }
+            }
+        }
+        return moves;
+    }
+}
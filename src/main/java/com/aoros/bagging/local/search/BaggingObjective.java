@@ -1,46 +1,41 @@
 package com.aoros.bagging.local.search;
 
-import java.util.Map;
 import org.jamesframework.core.exceptions.IncompatibleDeltaEvaluationException;
 import org.jamesframework.core.problems.objectives.evaluations.Evaluation;
 import org.jamesframework.core.problems.objectives.Objective;
 import org.jamesframework.core.problems.objectives.evaluations.SimpleEvaluation;
 import org.jamesframework.core.search.neigh.Move;
-import org.jamesframework.core.subset.SubsetSolution;
-import org.jamesframework.core.subset.neigh.moves.SubsetMove;
 
 /**
- * Objective for the bagging problem: maximize the total profit.
+ * Objective for the bagging problem: maximize the inclusivity score, i.e.
+ * minimize the number of violations caused by items sharing a bag with items
+ * they do not allow. The optimum is 0. Bags over capacity are handled by the
+ * {@link BaggingConstraint}.
  */
-public class BaggingObjective implements Objective<SubsetSolution, BaggingData> {
+public class BaggingObjective implements Objective<BaggingAssignment, BaggingData> {
 
     @Override
-    public Evaluation evaluate(SubsetSolution solution, BaggingData data) {
-        // compute sum of profits of selected items
-        Map<Integer, BaggingSolution> solutionMap = data.getIDsToSolutionMap();
-        BaggingSolution baggingSolution = solutionMap.get(solution.getSelectedIDs().iterator().next());
-        double value = baggingSolution.getSolutionScore();
-
-        // wrap in simple evaluation object
-        return SimpleEvaluation.WITH_VALUE(value);
+    public Evaluation evaluate(BaggingAssignment solution, BaggingData data) {
+        // the inclusivity score is kept up to date by the solution
+        return SimpleEvaluation.WITH_VALUE(solution.getSolution().getInclusivityScore());
     }
 
     @Override
-    public Evaluation evaluate(Move move, SubsetSolution curSolution, Evaluation curEvaluation, BaggingData data) {
-        // check move type
-        if (!(move instanceof SubsetMove)) {
+    public Evaluation evaluate(Move move, BaggingAssignment curSolution, Evaluation curEvaluation, BaggingData data) {
+        BaggingSolution solution = curSolution.getSolution();
+        double value = curEvaluation.getValue();
+        // account for the conflicts of the moved items only
+        if (move instanceof ItemReassignMove) {
+            ItemReassignMove reassignMove = (ItemReassignMove) move;
+            value += solution.getMoveItemInclusivityDelta(reassignMove.getItemId(),
+                    reassignMove.getFromBag(), reassignMove.getToBag());
+        } else if (move instanceof ItemSwapMove) {
+            ItemSwapMove swapMove = (ItemSwapMove) move;
+            value += solution.getSwapItemsInclusivityDelta(swapMove.getItemId1(), swapMove.getItemId2());
+        } else {
             throw new IncompatibleDeltaEvaluationException("Bagging objective should be used in combination "
-                    + "with neighbourhoods that generate moves of type SubsetMove.");
+                    + "with neighbourhoods that generate moves of type ItemReassignMove or ItemSwapMove.");
         }
-        // cast move
-        SubsetMove subsetMove = (SubsetMove) move;
-        // get current profit
-        double value = curEvaluation.getValue();
-//        // account for added items
-//        value += subsetMove.getAddedIDs().stream().mapToDouble(data::getIDsToSolutionMap).sum();
-//        // account for removed items
-//        value -= subsetMove.getDeletedIDs().stream().mapToDouble(data::getProfit).sum();
-        // return updated evaluation
         return SimpleEvaluation.WITH_VALUE(value);
     }
 
@@ -0,0 +1,17 @@
+package com.aoros.bagging.local.search;
+
+import org.jamesframework.core.problems.Problem;
+import org.jamesframework.core.search.neigh.Neighbourhood;
+import org.jamesframework.examples.util.TemperingReplica;
+
+/**
+ * Replica of the bagging parallel tempering search, keeping statistics over
+ * all its runs (see {@link TemperingReplica}).
+ */
+public class BaggingReplica extends TemperingReplica<BaggingAssignment> {
+
+    public BaggingReplica(Problem<BaggingAssignment> problem, Neighbourhood<? super BaggingAssignment> neighbourhood,
+            double temperature) {
+        super(problem, neighbourhood, temperature);
+    }
+}
@@ -0,0 +1,26 @@
+package com.aoros.bagging.local.search;
+
+/**
+ * Search engine working on a {@link BaggingSolution}.
+ */
+public interface BaggingSearch {
+
+    /**
+     * Runs the search until a solution with score 0 is found or the search's
+     * stop condition is met.
+     *
+     * @return the best solution found, a copy that is not modified by later
+     * steps of the search
+     */
+    BaggingSolution performSearch();
+
+    /**
+     * @return number of steps performed in the last run
+     */
+    long getSteps();
+
+    /**
+     * @return average number of steps per second in the last run
+     */
+    double getStepsPerSecond();
+}
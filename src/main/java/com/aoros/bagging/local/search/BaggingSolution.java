@@ -1,52 +1,78 @@
 package com.aoros.bagging.local.search;
 
-import java.util.HashSet;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 public class BaggingSolution {
 
     private final int maxBagSize;
+    // item -> bag assignment (-1 if the item is not in any bag)
+    private final int[] itemBags;
+    // dense per-bag item lists, with the position of each item in its bag's list
+    private final int[][] bagItems;
+    private final int[] bagCounts;
+    private final int[] itemPositions;
     private final Set<Integer>[] bagsOfItems;
+    private final long[][] bagBits;
     private final int[] bagSizes;
-    private final Map<Integer, Set<Integer>> inclusivityMap;
     private final int[] inclusivityBagViolationScores;
     private final int[] bagSizeViolationScores;
     private final BaggingItems items;
     private int violationScore = 0;
+    // the two parts of the violation score
+    private int inclusivityScore = 0;
+    private int sizeViolationScore = 0;
 
     public BaggingSolution(BaggingItems items) {
         this.items = items;
         this.maxBagSize = items.getMaxBagCapacity();
-        bagsOfItems = new Set[items.getNumAvailableBags()];
-        for (int i = 0; i < bagsOfItems.length; i++) {
-            bagsOfItems[i] = new HashSet<>();
+        int numBags = items.getNumAvailableBags();
+        int numItems = items.getSizes().length;
+        itemBags = new int[numItems];
+        Arrays.fill(itemBags, -1);
+        itemPositions = new int[numItems];
+        bagItems = new int[numBags][];
+        for (int i = 0; i < numBags; i++) {
+            bagItems[i] = new int[numItems / numBags + 1];
         }
-        bagSizes = new int[items.getNumAvailableBags()];
-        inclusivityMap = items.getInclusivityMap();
-        inclusivityBagViolationScores = new int[items.getNumAvailableBags()];
-        bagSizeViolationScores = new int[items.getNumAvailableBags()];
+        bagCounts = new int[numBags];
+        bagsOfItems = createBagViews(numBags);
+        bagBits = new long[numBags][items.getNumWords()];
+        bagSizes = new int[numBags];
+        inclusivityBagViolationScores = new int[numBags];
+        bagSizeViolationScores = new int[numBags];
     }
 
     public BaggingSolution(BaggingSolution solution) {
         this.items = solution.items;
         this.maxBagSize = solution.maxBagSize;
-        this.bagsOfItems = new Set[solution.items.getNumAvailableBags()];
-        this.bagSizes = new int[solution.bagSizes.length];
-        System.arraycopy(solution.bagSizes, 0, this.bagSizes, 0, solution.bagSizes.length);
-        this.inclusivityMap = solution.inclusivityMap;
-        this.inclusivityBagViolationScores = new int[solution.inclusivityBagViolationScores.length];
-        System.arraycopy(solution.inclusivityBagViolationScores, 0, this.inclusivityBagViolationScores, 0, solution.inclusivityBagViolationScores.length);
-        this.bagSizeViolationScores = new int[solution.bagSizeViolationScores.length];
-        System.arraycopy(solution.bagSizeViolationScores, 0, this.bagSizeViolationScores, 0, solution.bagSizeViolationScores.length);
-        for (int i = 0; i < bagsOfItems.length; i++) {
-            bagsOfItems[i] = new HashSet<>();
-            for (Integer item : solution.bagsOfItems[i]) {
-                bagsOfItems[i].add((int) item);
-            }
+        this.itemBags = solution.itemBags.clone();
+        this.itemPositions = solution.itemPositions.clone();
+        this.bagCounts = solution.bagCounts.clone();
+        this.bagItems = new int[solution.bagItems.length][];
+        this.bagBits = new long[solution.bagBits.length][];
+        for (int i = 0; i < bagItems.length; i++) {
+            bagItems[i] = solution.bagItems[i].clone();
+            bagBits[i] = solution.bagBits[i].clone();
         }
-        calculateSolutionScore();
+        this.bagsOfItems = createBagViews(bagItems.length);
+        this.bagSizes = solution.bagSizes.clone();
+        this.inclusivityBagViolationScores = solution.inclusivityBagViolationScores.clone();
+        this.bagSizeViolationScores = solution.bagSizeViolationScores.clone();
+        this.violationScore = solution.violationScore;
+        this.inclusivityScore = solution.inclusivityScore;
+        this.sizeViolationScore = solution.sizeViolationScore;
+    }
+
+    private Set<Integer>[] createBagViews(int numBags) {
+        Set<Integer>[] views = new Set[numBags];
+        for (int i = 0; i < numBags; i++) {
+            views[i] = new BagView(i);
+        }
+        return views;
     }
 
     public BaggingItems getItems() {
@@ -57,29 +83,221 @@ public class BaggingSolution {
         return bagSizes[bagNumber] + itemSize <= maxBagSize;
     }
 
-    public void addItemToBag(int bagNumber, Integer itemId) {
+    public void addItemToBag(int bagNumber, int itemId) {
+        if (itemBags[itemId] >= 0)
+            throw new IllegalStateException("Couldn't add " + itemId + " to bag number " + bagNumber
+                    + ": item is already in bag number " + itemBags[itemId]);
         int itemSize = items.getSizes()[itemId];
-        bagsOfItems[bagNumber].add(itemId);
+        int inclusivityDelta = -items.countPairConflicts(itemId, bagBits[bagNumber]);
+        int count = bagCounts[bagNumber];
+        if (count == bagItems[bagNumber].length)
+            bagItems[bagNumber] = Arrays.copyOf(bagItems[bagNumber], 2 * count);
+        bagItems[bagNumber][count] = itemId;
+        itemPositions[itemId] = count;
+        bagCounts[bagNumber] = count + 1;
+        itemBags[itemId] = bagNumber;
+        bagBits[bagNumber][itemId >>> 6] |= 1L << itemId;
         bagSizes[bagNumber] += itemSize;
-        calcInclusivityViolations(bagNumber, itemId);
-        calcBagSizeViolations(bagNumber, itemId);
-        calculateSolutionScore();
+        updateScores(bagNumber, inclusivityDelta);
     }
 
-    public void removeItemFromBag(int bagNumber, Integer itemId) {
-        int itemSize = items.getSizes()[itemId];
-        if (!bagsOfItems[bagNumber].remove(itemId))
+    public void removeItemFromBag(int bagNumber, int itemId) {
+        if (itemBags[itemId] != bagNumber)
             throw new IllegalStateException("Couldn't remove " + itemId + " from bag number " + bagNumber);
+        int itemSize = items.getSizes()[itemId];
+        // swap-remove: move the last item of the bag into the freed position
+        int last = --bagCounts[bagNumber];
+        int lastItemId = bagItems[bagNumber][last];
+        int position = itemPositions[itemId];
+        bagItems[bagNumber][position] = lastItemId;
+        itemPositions[lastItemId] = position;
+        itemBags[itemId] = -1;
+        bagBits[bagNumber][itemId >>> 6] &= ~(1L << itemId);
         bagSizes[bagNumber] -= itemSize;
-        calcInclusivityViolations(bagNumber, itemId);
-        calcBagSizeViolations(bagNumber, itemId);
-        calculateSolutionScore();
+        updateScores(bagNumber, items.countPairConflicts(itemId, bagBits[bagNumber]));
+    }
+    /**
+     * Moves an item from one bag to another, updating the scores of both bags
+     * by the conflicts of the moved item only.
+     *
+     * @param itemId the item to move
+     * @param fromBag the bag currently holding the item
+     * @param toBag the bag to put the item in
+     */
+    public void moveItem(int itemId, int fromBag, int toBag) {
+        if (fromBag == toBag)
+            return;
+        removeItemFromBag(fromBag, itemId);
+        addItemToBag(toBag, itemId);
+    }
+
+    /**
+     * Exchanges the bags of two items that are in different bags.
+     *
+     * @param itemId1 the first item
+     * @param itemId2 the second item
+     */
+    public void swapItems(int itemId1, int itemId2) {
+        int bag1 = itemBags[itemId1];
+        int bag2 = itemBags[itemId2];
+        if (bag1 < 0 || bag2 < 0 || bag1 == bag2)
+            throw new IllegalStateException("Couldn't swap " + itemId1 + " and " + itemId2
+                    + ": items should be in two different bags");
+        moveItem(itemId1, bag1, bag2);
+        moveItem(itemId2, bag2, bag1);
+    }
+
+    /**
+     * Computes the change in solution score if the given item, which is not in
+     * any bag, were added to the given bag. The solution is not modified.
+     *
+     * @param bagNumber the candidate bag
+     * @param itemId the item to add
+     * @return the score difference (new score - current score)
+     */
+    public int getAddItemDelta(int bagNumber, int itemId) {
+        int newSize = bagSizes[bagNumber] + items.getSizes()[itemId];
+        return -items.countPairConflicts(itemId, bagBits[bagNumber])
+                + sizeViolation(newSize) - bagSizeViolationScores[bagNumber];
+    }
+
+    /**
+     * Computes the change in solution score if the given item were removed from
+     * the given bag. The solution is not modified.
+     *
+     * @param bagNumber the bag holding the item
+     * @param itemId the item to remove
+     * @return the score difference (new score - current score)
+     */
+    public int getRemoveItemDelta(int bagNumber, int itemId) {
+        int newSize = bagSizes[bagNumber] - items.getSizes()[itemId];
+        return items.countPairConflicts(itemId, bagBits[bagNumber])
+                + sizeViolation(newSize) - bagSizeViolationScores[bagNumber];
     }
 
+    /**
+     * Computes the change in solution score if the given item were moved from
+     * one bag to another. The solution is not modified.
+     *
+     * @param itemId the item to move
+     * @param fromBag the bag currently holding the item
+     * @param toBag the candidate bag
+     * @return the score difference (new score - current score)
+     */
+    public int getMoveItemDelta(int itemId, int fromBag, int toBag) {
+        if (fromBag == toBag)
+            return 0;
+        return getRemoveItemDelta(fromBag, itemId) + getAddItemDelta(toBag, itemId);
+    }
+
+    /**
+     * Inclusivity part of {@link #getMoveItemDelta(int, int, int)}.
+     *
+     * @param itemId the item to move
+     * @param fromBag the bag currently holding the item
+     * @param toBag the candidate bag
+     * @return the difference in inclusivity score (new score - current score)
+     */
+    public int getMoveItemInclusivityDelta(int itemId, int fromBag, int toBag) {
+        if (fromBag == toBag)
+            return 0;
+        return items.countPairConflicts(itemId, bagBits[fromBag]) - items.countPairConflicts(itemId, bagBits[toBag]);
+    }
+
+    /**
+     * Bag size part of {@link #getMoveItemDelta(int, int, int)}.
+     *
+     * @param itemId the item to move
+     * @param fromBag the bag currently holding the item
+     * @param toBag the candidate bag
+     * @return the difference in bag size violation score (new score - current score)
+     */
+    public int getMoveItemSizeDelta(int itemId, int fromBag, int toBag) {
+        if (fromBag == toBag)
+            return 0;
+        int itemSize = items.getSizes()[itemId];
+        return sizeViolation(bagSizes[fromBag] - itemSize) - bagSizeViolationScores[fromBag]
+                + sizeViolation(bagSizes[toBag] + itemSize) - bagSizeViolationScores[toBag];
+    }
+
+    /**
+     * Computes the change in solution score if the two given items, which
+     * are in different bags, exchanged bags. The solution is not modified.
+     *
+     * @param itemId1 the first item
+     * @param itemId2 the second item
+     * @return the score difference (new score - current score)
+     */
+    public int getSwapItemsDelta(int itemId1, int itemId2) {
+        return getSwapItemsInclusivityDelta(itemId1, itemId2) + getSwapItemsSizeDelta(itemId1, itemId2);
+    }
+
+    /**
+     * Inclusivity part of {@link #getSwapItemsDelta(int, int)}.
+     *
+     * @param itemId1 the first item
+     * @param itemId2 the second item
+     * @return the difference in inclusivity score (new score - current score)
+     */
+    public int getSwapItemsInclusivityDelta(int itemId1, int itemId2) {
+        int bag1 = itemBags[itemId1];
+        int bag2 = itemBags[itemId2];
+        // conflicts of each item with the other bag include the pair itself,
+        // which does not end up in the same bag
+        return items.countPairConflicts(itemId1, bagBits[bag1]) + items.countPairConflicts(itemId2, bagBits[bag2])
+                - items.countPairConflicts(itemId1, bagBits[bag2]) - items.countPairConflicts(itemId2, bagBits[bag1])
+                + 2 * items.countPairConflicts(itemId1, itemId2);
+    }
+
+    /**
+     * Bag size part of {@link #getSwapItemsDelta(int, int)}.
+     *
+     * @param itemId1 the first item
+     * @param itemId2 the second item
+     * @return the difference in bag size violation score (new score - current score)
+     */
+    public int getSwapItemsSizeDelta(int itemId1, int itemId2) {
+        int bag1 = itemBags[itemId1];
+        int bag2 = itemBags[itemId2];
+        int sizeDifference = items.getSizes()[itemId2] - items.getSizes()[itemId1];
+        return sizeViolation(bagSizes[bag1] + sizeDifference) - bagSizeViolationScores[bag1]
+                + sizeViolation(bagSizes[bag2] - sizeDifference) - bagSizeViolationScores[bag2];
+    }
+
+    /**
+     * @return read-only views of the items in each bag
+     */
     public Set<Integer>[] getBagsOfItems() {
         return bagsOfItems;
     }
 
+    public int getNumBags() {
+        return bagItems.length;
+    }
+
+    public int getNumItemsInBag(int bagNumber) {
+        return bagCounts[bagNumber];
+    }
+
+    /**
+     * @param bagNumber the bag
+     * @param index position in the bag, between 0 (inclusive) and
+     * {@link #getNumItemsInBag(int)} (exclusive)
+     * @return the item at the given position; positions change when items are
+     * removed from the bag
+     */
+    public int getItemInBag(int bagNumber, int index) {
+        return bagItems[bagNumber][index];
+    }
+
+    /**
+     * @param itemId the item
+     * @return the bag holding the item, or -1 if it is not in any bag
+     */
+    public int getBagOfItem(int itemId) {
+        return itemBags[itemId];
+    }
+
     public int getBagSize(int index) {
         return bagSizes[index];
     }
@@ -88,35 +306,82 @@ public class BaggingSolution {
         return violationScore;
     }
 
-    private void calcInclusivityViolations(int bagNumber, Integer itemId) {
-        int score = 0;
-        for (Iterator<Integer> it = bagsOfItems[bagNumber].iterator(); it.hasNext();) {
-            // Get all items in the bag
-            Set<Integer> itemsInBag = new HashSet<>();
-            itemsInBag.addAll(bagsOfItems[bagNumber]);
+    /**
+     * @return the part of the solution score caused by items sharing a bag
+     * with items they do not allow (0 or negative)
+     */
+    public int getInclusivityScore() {
+        return inclusivityScore;
+    }
 
-            Set<Integer> inclusivitySet = new HashSet<>();
-            inclusivitySet.addAll(inclusivityMap.get(it.next()));
+    /**
+     * @return the part of the solution score caused by bags over capacity
+     * (0 or negative)
+     */
+    public int getSizeViolationScore() {
+        return sizeViolationScore;
+    }
 
-            itemsInBag.removeAll(inclusivitySet);
-            score -= itemsInBag.size();
-        }
-        inclusivityBagViolationScores[bagNumber] = score;
+    private void updateScores(int bagNumber, int inclusivityDelta) {
+        int sizeScore = sizeViolation(bagSizes[bagNumber]);
+        violationScore += inclusivityDelta + sizeScore - bagSizeViolationScores[bagNumber];
+        inclusivityScore += inclusivityDelta;
+        sizeViolationScore += sizeScore - bagSizeViolationScores[bagNumber];
+        inclusivityBagViolationScores[bagNumber] += inclusivityDelta;
+        bagSizeViolationScores[bagNumber] = sizeScore;
     }
 
-    private void calcBagSizeViolations(int bagNumber, Integer itemId) {
-        int score = maxBagSize - bagSizes[bagNumber];
-        bagSizeViolationScores[bagNumber] = score >= 0 ? 0 : score;
+    private int sizeViolation(int bagSize) {
+        int score = maxBagSize - bagSize;
+        return score >= 0 ? 0 : score;
     }
 
     @Override
     public String toString() {
-        return "BaggingSolution{" + "maxBagSize=" + maxBagSize + ", bagsOfItems=" + bagsOfItems + ", bagSizes=" + bagSizes + ", inclusivityMap=" + inclusivityMap + ", inclusivityBagViolationScores=" + inclusivityBagViolationScores + '}';
+        return "BaggingSolution{" + "maxBagSize=" + maxBagSize + ", bagsOfItems=" + bagsOfItems + ", bagSizes=" + bagSizes + ", inclusivityBagViolationScores=" + inclusivityBagViolationScores + '}';
     }
 
-    private void calculateSolutionScore() {
-        violationScore = 0;
-        for (int i = 0; i < inclusivityBagViolationScores.length; i++)
-            violationScore += inclusivityBagViolationScores[i] + bagSizeViolationScores[i];
+    /**
+     * Read-only set view of the items in one bag, backed by the solution.
+     */
+    private class BagView extends AbstractSet<Integer> {
+
+        private final int bagNumber;
+
+        BagView(int bagNumber) {
+            this.bagNumber = bagNumber;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Integer))
+                return false;
+            int itemId = (Integer) o;
+            return itemId >= 0 && itemId < itemBags.length && itemBags[itemId] == bagNumber;
+        }
+
+        @Override
+        public int size() {
+            return bagCounts[bagNumber];
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return new Iterator<Integer>() {
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < bagCounts[bagNumber];
+                }
+
+                @Override
+                public Integer next() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    return bagItems[bagNumber][next++];
+                }
+            };
+        }
     }
 }
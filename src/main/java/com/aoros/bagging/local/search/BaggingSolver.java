@@ -0,0 +1,188 @@
+package com.aoros.bagging.local.search;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.jamesframework.core.search.algo.ParallelTempering;
+import org.jamesframework.examples.util.BatchRunner;
+import org.jamesframework.examples.util.SolverResult;
+
+/**
+ * Programmatic interface to the bagging searches of {@link Bagging}: solves an
+ * instance without printing anything and returns the best solution with its
+ * score (0 if all items are bagged without violations), the runtime and the
+ * number of steps. A solver can be reused for many instances, also
+ * concurrently.
+ */
+public class BaggingSolver {
+
+    private final BaggingStopCriteria stopCriteria;
+    private Bagging.SearchMode searchMode = Bagging.SearchMode.TABU;
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * @param timeLimitInSecs runtime limit per instance (in seconds); with
+     * {@link Bagging.SearchMode#RESTARTS} this limit applies to every restart
+     */
+    public BaggingSolver(int timeLimitInSecs) {
+        if (timeLimitInSecs <= 0)
+            throw new IllegalArgumentException("Time limit should be strictly positive: " + timeLimitInSecs);
+        this.stopCriteria = new BaggingStopCriteria(timeLimitInSecs, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return the stop criteria of the searches, to which a stagnation limit
+     * or a different target score can be added; changes apply to the next
+     * solves
+     */
+    public BaggingStopCriteria getStopCriteria() {
+        return stopCriteria;
+    }
+
+    /**
+     * Solves a directory of bagging instances in a single JVM. Expects at
+     * least two parameters: (1) the directory and (2) the runtime limit per
+     * instance (in seconds), optionally followed by (3) the number of
+     * instances solved concurrently (default: number of cores divided by the
+     * number of threads of a single solve, at least 1), (4) the output format, {@code csv} (default) or {@code json}, and (5) the
+     * search mode (default: {@code TABU}). Results are written to standard
+     * output.
+     *
+     * @param args array containing the directory, runtime limit, number of
+     * threads, output format and search mode
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 5) {
+            System.err.println("Usage: java BaggingSolver <directory> <runtime> [<threads>] [csv|json] [<searchmode>]");
+            System.exit(1);
+        }
+        BaggingSolver solver = new BaggingSolver(Integer.parseInt(args[1]));
+        if (args.length > 4)
+            solver.setSearchMode(Bagging.SearchMode.valueOf(args[4].toUpperCase()));
+        // the multi-threaded search modes already use all cores for a single solve
+        int numThreads = args.length > 2
+                ? Integer.parseInt(args[2])
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / solver.getThreadsPerSolve());
+        BatchRunner.Format format = args.length > 3
+                ? BatchRunner.Format.valueOf(args[3].toUpperCase())
+                : BatchRunner.Format.CSV;
+        try {
+            new BatchRunner(numThreads, format).run(Paths.get(args[0]), solver::solve, System.out);
+        } catch (IOException ex) {
+            System.err.println("Failed to read directory: " + args[0] + " (" + ex.getMessage() + ")");
+            System.exit(2);
+        }
+    }
+
+    public void setSearchMode(Bagging.SearchMode searchMode) {
+        this.searchMode = searchMode;
+    }
+
+    public Bagging.SearchMode getSearchMode() {
+        return searchMode;
+    }
+
+    /**
+     * @param numThreads number of threads (workers or replicas) used by the
+     * multi-threaded search modes of a single solve
+     */
+    public void setNumThreads(int numThreads) {
+        if (numThreads <= 0)
+            throw new IllegalArgumentException("Number of threads should be strictly positive: " + numThreads);
+        this.numThreads = numThreads;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     * @return number of threads used by a single solve with the configured
+     * search mode
+     */
+    public int getThreadsPerSolve() {
+        switch (searchMode) {
+            case PARALLEL_MULTI_START:
+            case ISLANDS:
+                return numThreads;
+            case PARALLEL_TEMPERING:
+                return Math.max(2, numThreads);
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Reads and solves the given instance file (see
+     * {@link Bagging#readInstance(String)}).
+     *
+     * @param instance path of the instance file
+     * @return the result, named after the file
+     * @throws IOException if the file can not be read
+     */
+    public SolverResult<BaggingSolution> solve(Path instance) throws IOException {
+        return solve(instance.getFileName().toString(), new BaggingData(Bagging.readInstance(instance.toString())));
+    }
+
+    /**
+     * Solves the given instance with the configured search mode.
+     *
+     * @param name name of the instance, copied into the result
+     * @param data the bagging instance
+     * @return the result
+     */
+    public SolverResult<BaggingSolution> solve(String name, BaggingData data) {
+        long start = System.currentTimeMillis();
+        BaggingSolution best;
+        long steps;
+        switch (searchMode) {
+            case RESTARTS: {
+                best = null;
+                steps = 0;
+                for (int k = 0; k < Bagging.NUM_RESTARTS; k++) {
+                    BaggingLocalSearch search = new BaggingLocalSearch(data.createRandomSolution(), stopCriteria, false, null);
+                    BaggingSolution solution = search.performSearch();
+                    steps += search.getSteps();
+                    if (best == null || solution.getSolutionScore() > best.getSolutionScore())
+                        best = solution;
+                    if (best.getSolutionScore() >= stopCriteria.getTargetScore())
+                        break;
+                }
+                break;
+            }
+            case PARALLEL_MULTI_START: {
+                BaggingMultiStartSearch search = new BaggingMultiStartSearch(data, numThreads, stopCriteria, false);
+                best = search.performSearch();
+                steps = search.getTotalSteps();
+                break;
+            }
+            case ISLANDS: {
+                BaggingIslandSearch search = new BaggingIslandSearch(data, numThreads, stopCriteria, false);
+                best = search.performSearch();
+                steps = search.getTotalSteps();
+                break;
+            }
+            case PARALLEL_TEMPERING: {
+                ParallelTempering<BaggingAssignment> search = Bagging.createParallelTempering(data,
+                        Math.max(2, numThreads), stopCriteria, null);
+                try {
+                    search.start();
+                    best = search.getBestSolution() != null ? search.getBestSolution().getSolution() : null;
+                    steps = search.getSteps();
+                } finally {
+                    search.dispose();
+                }
+                break;
+            }
+            default: {
+                BaggingTabuSearch search = new BaggingTabuSearch(data.createRandomSolution(), stopCriteria, false, null,
+                        BaggingTabuSearch.DEFAULT_TABU_TENURE);
+                best = search.performSearch();
+                steps = search.getSteps();
+            }
+        }
+        long runtime = System.currentTimeMillis() - start;
+        return new SolverResult<>(name, best, best != null ? best.getSolutionScore() : Double.NaN, runtime, steps);
+    }
+}
@@ -0,0 +1,186 @@
+package com.aoros.bagging.local.search;
+
+import java.util.concurrent.TimeUnit;
+import org.jamesframework.core.search.Search;
+import org.jamesframework.core.search.stopcriteria.MaxRuntime;
+import org.jamesframework.core.search.stopcriteria.MaxSteps;
+import org.jamesframework.core.search.stopcriteria.MaxStepsWithoutImprovement;
+import org.jamesframework.core.search.stopcriteria.MaxTimeWithoutImprovement;
+import org.jamesframework.examples.util.TargetValue;
+
+/**
+ * Stop criteria for the bagging searches: a maximum runtime and number of
+ * steps, a maximum number of steps and a maximum time without improvement of
+ * the best score, and a target score (0 by default, i.e. all items bagged
+ * without violations).
+ * Limits that are not set are not checked.
+ * <p>
+ * The criteria can be shared by several searches; each run of a search checks
+ * them through its own {@link Tracker}. The clock is only read every
+ * {@link #getCheckInterval()} steps and when the best score improves, so the
+ * time limits are checked with little overhead per step.
+ */
+public class BaggingStopCriteria {
+
+    public static final int DEFAULT_CHECK_INTERVAL = 1024;
+    // how often JAMES searches check their stop criteria
+    static final long JAMES_CHECK_PERIOD_MILLIS = 10;
+
+    private long maxRuntimeNanos = Long.MAX_VALUE;
+    private long maxSteps = Long.MAX_VALUE;
+    private long maxStepsWithoutImprovement = Long.MAX_VALUE;
+    private long maxTimeWithoutImprovementNanos = Long.MAX_VALUE;
+    private int targetScore = 0;
+    private int checkInterval = DEFAULT_CHECK_INTERVAL;
+
+    /**
+     * Creates stop criteria with only a target score of 0.
+     */
+    public BaggingStopCriteria() {
+    }
+
+    /**
+     * Creates stop criteria with a maximum runtime and a target score of 0.
+     *
+     * @param maxRuntime maximum runtime
+     * @param unit time unit of the maximum runtime
+     */
+    public BaggingStopCriteria(long maxRuntime, TimeUnit unit) {
+        setMaxRuntime(maxRuntime, unit);
+    }
+
+    public void setMaxRuntime(long maxRuntime, TimeUnit unit) {
+        if (maxRuntime <= 0)
+            throw new IllegalArgumentException("Maximum runtime should be strictly positive: " + maxRuntime);
+        this.maxRuntimeNanos = unit.toNanos(maxRuntime);
+    }
+
+    public void setMaxSteps(long maxSteps) {
+        if (maxSteps <= 0)
+            throw new IllegalArgumentException("Maximum steps should be strictly positive: " + maxSteps);
+        this.maxSteps = maxSteps;
+    }
+
+    public void setMaxStepsWithoutImprovement(long maxStepsWithoutImprovement) {
+        if (maxStepsWithoutImprovement <= 0)
+            throw new IllegalArgumentException("Maximum steps without improvement should be strictly positive: "
+                    + maxStepsWithoutImprovement);
+        this.maxStepsWithoutImprovement = maxStepsWithoutImprovement;
+    }
+
+    public void setMaxTimeWithoutImprovement(long maxTimeWithoutImprovement, TimeUnit unit) {
+        if (maxTimeWithoutImprovement <= 0)
+            throw new IllegalArgumentException("Maximum time without improvement should be strictly positive: "
+                    + maxTimeWithoutImprovement);
+        this.maxTimeWithoutImprovementNanos = unit.toNanos(maxTimeWithoutImprovement);
+    }
+
+    /**
+     * @param targetScore score at which the search stops (0 or negative)
+     */
+    public void setTargetScore(int targetScore) {
+        if (targetScore > 0)
+            throw new IllegalArgumentException("Target score should be 0 or negative: " + targetScore);
+        this.targetScore = targetScore;
+    }
+
+    public int getTargetScore() {
+        return targetScore;
+    }
+
+    /**
+     * @param checkInterval number of steps between two checks of the time
+     * limits
+     */
+    public void setCheckInterval(int checkInterval) {
+        if (checkInterval <= 0)
+            throw new IllegalArgumentException("Check interval should be strictly positive: " + checkInterval);
+        this.checkInterval = checkInterval;
+    }
+
+    public int getCheckInterval() {
+        return checkInterval;
+    }
+
+    /**
+     * Adds the equivalent JAMES stop criteria to the given search, and lowers
+     * its stop criterion check period so that it stops soon after the target
+     * score has been reached.
+     *
+     * @param search a search for a bagging problem
+     */
+    public void addTo(Search<?> search) {
+        if (maxRuntimeNanos != Long.MAX_VALUE)
+            search.addStopCriterion(new MaxRuntime(maxRuntimeNanos, TimeUnit.NANOSECONDS));
+        if (maxSteps != Long.MAX_VALUE)
+            search.addStopCriterion(new MaxSteps(maxSteps));
+        if (maxStepsWithoutImprovement != Long.MAX_VALUE)
+            search.addStopCriterion(new MaxStepsWithoutImprovement(maxStepsWithoutImprovement));
+        if (maxTimeWithoutImprovementNanos != Long.MAX_VALUE)
+            search.addStopCriterion(new MaxTimeWithoutImprovement(maxTimeWithoutImprovementNanos, TimeUnit.NANOSECONDS));
+        search.addStopCriterion(new TargetValue(targetScore));
+        search.setStopCriterionCheckPeriod(JAMES_CHECK_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts tracking a search run.
+     *
+     * @param score the score of the starting solution
+     * @return a tracker for the run
+     */
+    public Tracker start(int score) {
+        return new Tracker(score);
+    }
+
+    /**
+     * Checks the stop criteria for a single search run.
+     */
+    public class Tracker {
+
+        private final long startNanos;
+        private int bestScore;
+        private long lastImprovementStep = 0;
+        private long lastImprovementNanos;
+        private long nextCheckStep = checkInterval;
+
+        private Tracker(int score) {
+            startNanos = System.nanoTime();
+            lastImprovementNanos = startNanos;
+            bestScore = score;
+        }
+
+        /**
+         * @param score a score
+         * @return true if the score is at least the target score
+         */
+        public boolean isTargetReached(int score) {
+            return score >= targetScore;
+        }
+
+        /**
+         * Checks whether the search should stop after the given number of
+         * steps, given the current score.
+         *
+         * @param steps number of steps performed so far
+         * @param score the current score
+         * @return true if the search should stop
+         */
+        public boolean shouldStop(long steps, int score) {
+            if (score > bestScore) {
+                bestScore = score;
+                lastImprovementStep = steps;
+                lastImprovementNanos = System.nanoTime();
+            }
+            if (bestScore >= targetScore)
+                return true;
+            if (steps >= maxSteps || steps - lastImprovementStep >= maxStepsWithoutImprovement)
+                return true;
+            if (steps < nextCheckStep)
+                return false;
+            nextCheckStep = steps + checkInterval;
+            long now = System.nanoTime();
+            return now - startNanos >= maxRuntimeNanos
+                    || now - lastImprovementNanos >= maxTimeWithoutImprovementNanos;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.aoros.bagging.local.search;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jamesframework.examples.util.AsyncProgressSink;
+
+/**
+ * Tabu search with a min-conflicts neighbourhood. Every step only the items
+ * involved in a violation (a conflict with another item in their bag, or a
+ * bag that is over capacity) are considered, and the best move of one of them
+ * to another bag is applied, even if it makes the score worse. Moving an item
+ * back to a bag it recently left is tabu for a number of steps, unless the
+ * move leads to a score better than the best one found so far (aspiration).
+ */
+public class BaggingTabuSearch implements BaggingSearch {
+
+    public static final int DEFAULT_TABU_TENURE = 10;
+
+    private final BaggingSolution solution;
+    private final BaggingStopCriteria stopCriteria;
+    private final Random r = new Random();
+    private final boolean verbose;
+    // sink for verbose output, null if not verbose
+    private final AsyncProgressSink progress;
+    // optional flag shared with other searches; the search stops once it is set
+    private final AtomicBoolean stopFlag;
+    private final int numBags;
+    private final int numItems;
+    private final int tabuTenure;
+    // step until which moving item i back to bag b is tabu, at [i * numBags + b]
+    private final long[] tabuUntil;
+    // best move found in the current step
+    private int bestItem;
+    private int bestBag;
+    // number of items involved in a violation in the current step
+    private int numConflicted;
+    private BaggingSolution bestSolution;
+    private long steps = 0;
+    private long runtimeInMillis = 0;
+
+    public BaggingTabuSearch(BaggingSolution startingSolution, int timeLimitInSecs, boolean verbose) {
+        this(startingSolution, timeLimitInSecs, verbose, null);
+    }
+
+    public BaggingTabuSearch(BaggingSolution startingSolution, int timeLimitInSecs, boolean verbose, AtomicBoolean stopFlag) {
+        this(startingSolution, timeLimitInSecs, verbose, stopFlag, DEFAULT_TABU_TENURE);
+    }
+
+    public BaggingTabuSearch(BaggingSolution startingSolution, int timeLimitInSecs, boolean verbose, AtomicBoolean stopFlag,
+            int tabuTenure) {
+        this(startingSolution, new BaggingStopCriteria(timeLimitInSecs, TimeUnit.SECONDS), verbose, stopFlag, tabuTenure);
+    }
+
+    public BaggingTabuSearch(BaggingSolution startingSolution, BaggingStopCriteria stopCriteria, boolean verbose,
+            AtomicBoolean stopFlag, int tabuTenure) {
+        if (tabuTenure < 0)
+            throw new IllegalArgumentException("Tabu tenure should be non-negative: " + tabuTenure);
+        this.solution = startingSolution;
+        this.stopCriteria = stopCriteria;
+        this.verbose = verbose;
+        this.progress = verbose ? AsyncProgressSink.getDefault() : null;
+        this.stopFlag = stopFlag;
+        this.tabuTenure = tabuTenure;
+        this.numBags = startingSolution.getNumBags();
+        this.numItems = startingSolution.getItems().getSizes().length;
+        this.tabuUntil = new long[numItems * numBags];
+    }
+
+    /**
+     * Runs the search until one of the stop criteria is satisfied or the stop
+     * flag is set. When the target score is reached, the stop flag is set.
+     *
+     * @return the best solution found
+     */
+    @Override
+    public BaggingSolution performSearch() {
+        long startTimer = System.nanoTime();
+        bestSolution = new BaggingSolution(solution);
+        BaggingStopCriteria.Tracker tracker = stopCriteria.start(solution.getSolutionScore());
+        while (true) {
+            // verbose output is rate-limited: the bags are only formatted when
+            // the progress sink is about to write
+            if (verbose && progress.wantsUpdate())
+                progress.update(this, "", Bagging.formatBagOfItems(solution));
+
+            if (tracker.shouldStop(steps, bestSolution.getSolutionScore())) {
+                if (stopFlag != null && tracker.isTargetReached(bestSolution.getSolutionScore()))
+                    stopFlag.set(true);
+                break;
+            }
+            if (stopFlag != null && stopFlag.get())
+                break;
+
+            if (findBestMove())
+                applyMove(bestItem, solution.getBagOfItem(bestItem), bestBag);
+            steps++;
+        }
+        runtimeInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimer);
+        if (verbose)
+            progress.flush();
+
+        return bestSolution;
+    }
+
+    /**
+     * @return the solution the search is currently at, which may be worse
+     * than the best solution returned by {@link #performSearch()}
+     */
+    public BaggingSolution getCurrentSolution() {
+        return solution;
+    }
+
+    @Override
+    public long getSteps() {
+        return steps;
+    }
+
+    public long getRuntimeInMillis() {
+        return runtimeInMillis;
+    }
+
+    @Override
+    public double getStepsPerSecond() {
+        return runtimeInMillis > 0 ? steps * 1000.0 / runtimeInMillis : 0.0;
+    }
+
+    private boolean findBestMove() {
+        //    over all items involved in a violation (those whose removal would
+        //    improve the score), peek at the score of moving them to each other
+        //    bag and keep the best non-tabu move; a tabu move is allowed if it
+        //    beats the best score found so far. Ties are broken at random.
+        int score = solution.getSolutionScore();
+        int bestScore = bestSolution.getSolutionScore();
+        int bestDelta = Integer.MIN_VALUE;
+        int numBest = 0;
+        numConflicted = 0;
+        for (int itemId = 0; itemId < numItems; itemId++) {
+            int fromBag = solution.getBagOfItem(itemId);
+            if (fromBag < 0)
+                continue;
+            int removeDelta = solution.getRemoveItemDelta(fromBag, itemId);
+            if (removeDelta <= 0)
+                continue;
+            numConflicted++;
+            int offset = itemId * numBags;
+            for (int bag = 0; bag < numBags; bag++) {
+                if (bag == fromBag)
+                    continue;
+                int delta = removeDelta + solution.getAddItemDelta(bag, itemId);
+                if (delta < bestDelta || (tabuUntil[offset + bag] > steps && score + delta <= bestScore))
+                    continue;
+                if (delta > bestDelta) {
+                    bestDelta = delta;
+                    numBest = 0;
+                }
+                if (r.nextInt(++numBest) == 0) {
+                    bestItem = itemId;
+                    bestBag = bag;
+                }
+            }
+        }
+        return numBest > 0;
+    }
+
+    private void applyMove(int itemId, int fromBag, int toBag) {
+        solution.moveItem(itemId, fromBag, toBag);
+        // forbid moving the item straight back for a number of steps that grows
+        // with the number of conflicted items; the random part helps to avoid
+        // cycles of fixed length
+        tabuUntil[itemId * numBags + fromBag] = steps + 1 + r.nextInt(tabuTenure + 1) + (6 * numConflicted) / 10;
+        if (solution.getSolutionScore() > bestSolution.getSolutionScore())
+            bestSolution = new BaggingSolution(solution);
+    }
+}
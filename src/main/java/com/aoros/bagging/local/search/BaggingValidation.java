@@ -1,27 +1,31 @@
 package com.aoros.bagging.local.search;
 
-import org.jamesframework.core.problems.constraints.validations.Validation;
+import org.jamesframework.core.problems.constraints.validations.PenalizingValidation;
 
 /**
  * Custom validation object generated by the bagging constraint.
  */
-public class BaggingValidation implements Validation {
+public class BaggingValidation implements PenalizingValidation {
 
-    private final double curWeight;
-    private final double maxWeight;
+    // total size by which the bags exceed the maximum bag capacity
+    private final int overflow;
 
-    public BaggingValidation(double curWeight, double maxWeight) {
-        this.curWeight = curWeight;
-        this.maxWeight = maxWeight;
+    public BaggingValidation(int overflow) {
+        this.overflow = overflow;
     }
 
     @Override
     public boolean passed() {
-        return curWeight <= maxWeight;
+        return overflow == 0;
     }
 
-    public double getCurWeight() {
-        return curWeight;
+    @Override
+    public double getPenalty() {
+        return overflow;
+    }
+
+    public int getOverflow() {
+        return overflow;
     }
 
 }
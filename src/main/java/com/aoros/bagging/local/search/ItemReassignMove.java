@@ -0,0 +1,56 @@
+package com.aoros.bagging.local.search;
+
+import org.jamesframework.core.search.neigh.Move;
+
+/**
+ * Moves a single item from its current bag to another bag.
+ */
+public class ItemReassignMove implements Move<BaggingAssignment> {
+
+    private final int itemId;
+    private final int fromBag;
+    private final int toBag;
+
+    public ItemReassignMove(int itemId, int fromBag, int toBag) {
+        if (fromBag == toBag)
+            throw new IllegalArgumentException("Item " + itemId + " should be moved to a different bag");
+        this.itemId = itemId;
+        this.fromBag = fromBag;
+        this.toBag = toBag;
+    }
+
+    public int getItemId() {
+        return itemId;
+    }
+
+    public int getFromBag() {
+        return fromBag;
+    }
+
+    public int getToBag() {
+        return toBag;
+    }
+
+    @Override
+    public void apply(BaggingAssignment assignment) {
+        assignment.getSolution().moveItem(itemId, fromBag, toBag);
+    }
+
+    @Override
+    public void undo(BaggingAssignment assignment) {
+        assignment.getSolution().moveItem(itemId, toBag, fromBag);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof ItemReassignMove))
+            return false;
+        ItemReassignMove other = (ItemReassignMove) obj;
+        return itemId == other.itemId && fromBag == other.fromBag && toBag == other.toBag;
+    }
+
+    @Override
+    public int hashCode() {
+        return (31 * itemId + fromBag) * 31 + toBag;
+    }
+}
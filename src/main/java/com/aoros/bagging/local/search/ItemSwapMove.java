@@ -0,0 +1,52 @@
+package com.aoros.bagging.local.search;
+
+import org.jamesframework.core.search.neigh.Move;
+
+/**
+ * Exchanges the bags of two items that are in different bags.
+ */
+public class ItemSwapMove implements Move<BaggingAssignment> {
+
+    private final int itemId1;
+    private final int itemId2;
+
+    public ItemSwapMove(int itemId1, int itemId2) {
+        if (itemId1 == itemId2)
+            throw new IllegalArgumentException("Can't swap item " + itemId1 + " with itself");
+        this.itemId1 = itemId1;
+        this.itemId2 = itemId2;
+    }
+
+    public int getItemId1() {
+        return itemId1;
+    }
+
+    public int getItemId2() {
+        return itemId2;
+    }
+
+    @Override
+    public void apply(BaggingAssignment assignment) {
+        assignment.getSolution().swapItems(itemId1, itemId2);
+    }
+
+    @Override
+    public void undo(BaggingAssignment assignment) {
+        // swapping again restores the original bags
+        assignment.getSolution().swapItems(itemId1, itemId2);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof ItemSwapMove))
+            return false;
+        ItemSwapMove other = (ItemSwapMove) obj;
+        return (itemId1 == other.itemId1 && itemId2 == other.itemId2)
+                || (itemId1 == other.itemId2 && itemId2 == other.itemId1);
+    }
+
+    @Override
+    public int hashCode() {
+        return itemId1 ^ itemId2;
+    }
+}
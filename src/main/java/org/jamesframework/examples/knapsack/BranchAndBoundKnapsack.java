@@ -0,0 +1,376 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jamesframework.examples.knapsack;
+
+import java.util.concurrent.TimeUnit;
+import org.jamesframework.core.subset.SubsetSolution;
+
+/**
+ * Exact depth-first branch-and-bound solver for the 0/1 knapsack problem. Items are visited in order of decreasing
+ * profit/weight ratio, always trying to include an item before excluding it, and a branch is pruned when its
+ * fractional (Dantzig) upper bound does not exceed the profit of the best solution found so far. The bound is computed
+ * in O(log n) from prefix sums of the sorted weights and profits. If profits are all integer, bounds are rounded
+ * down, which prunes considerably more.
+ * <p>
+ * An optional time limit can be set, after which the best solution found so far is returned together with a proven
+ * upper bound on the optimum, obtained from the bounds of the branches that were not yet explored. Weights should be
+ * non-negative.
+ */
+public class BranchAndBoundKnapsack {
+
+    // number of nodes between two checks of the time limit
+    private static final int TIME_CHECK_INTERVAL = 1024;
+    // branch states on the current path
+    private static final byte NEW = 0, INCLUDED = 1, EXCLUDED = 2;
+
+    private final double capacity;
+    private long timeLimit = Long.MAX_VALUE;
+    private volatile boolean stopRequested = false;
+
+    /**
+     * @param capacity knapsack capacity
+     */
+    public BranchAndBoundKnapsack(double capacity){
+        if(capacity < 0){
+            throw new IllegalArgumentException("Capacity should be non-negative: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Sets a time limit after which the search stops with the best solution found so far.
+     *
+     * @param timeLimit time limit
+     * @param unit time unit
+     */
+    public void setTimeLimit(long timeLimit, TimeUnit unit){
+        if(timeLimit <= 0){
+            throw new IllegalArgumentException("Time limit should be strictly positive: " + timeLimit);
+        }
+        this.timeLimit = unit.toNanos(timeLimit);
+    }
+
+    /**
+     * Stops the running searches as if their time limit was reached. If no search is running, the next search stops
+     * right away.
+     */
+    public void stop(){
+        stopRequested = true;
+    }
+
+    public double getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Solves the given instance.
+     *
+     * @param data knapsack data
+     * @return the best solution found, with its profit, an upper bound on the optimum and search statistics
+     */
+    public Result solve(KnapsackData data){
+        try {
+            return new Search(data).run();
+        } finally {
+            stopRequested = false;
+        }
+    }
+
+    /**
+     * Result of a branch-and-bound run.
+     */
+    public static class Result {
+
+        private final SubsetSolution solution;
+        private final double profit;
+        private final double weight;
+        private final double upperBound;
+        private final long nodes;
+        private final long runtime;
+
+        private Result(SubsetSolution solution, double profit, double weight, double upperBound, long nodes, long runtime){
+            this.solution = solution;
+            this.profit = profit;
+            this.weight = weight;
+            this.upperBound = upperBound;
+            this.nodes = nodes;
+            this.runtime = runtime;
+        }
+
+        public SubsetSolution getSolution() {
+            return solution;
+        }
+
+        public double getProfit() {
+            return profit;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        /**
+         * @return proven upper bound on the optimal profit, equal to the profit if the solution is optimal
+         */
+        public double getUpperBound() {
+            return upperBound;
+        }
+
+        /**
+         * @return difference between the upper bound and the profit of the solution
+         */
+        public double getGap() {
+            return upperBound - profit;
+        }
+
+        /**
+         * @return relative gap, i.e. the gap divided by the upper bound (0 if the upper bound is 0)
+         */
+        public double getRelativeGap() {
+            return upperBound > 0 ? getGap() / upperBound : 0.0;
+        }
+
+        public boolean isOptimal() {
+            return getGap() <= 0;
+        }
+
+        /**
+         * @return number of visited branch-and-bound nodes
+         */
+        public long getNodes() {
+            return nodes;
+        }
+
+        /**
+         * @return runtime in milliseconds
+         */
+        public long getRuntime() {
+            return runtime;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("profit %s, upper bound %s, gap %.4f%%, %d nodes, %d ms%s",
+                                 profit, upperBound, 100 * getRelativeGap(), nodes, runtime,
+                                 isOptimal() ? " (optimal)" : "");
+        }
+
+    }
+
+    /**
+     * State of a single run.
+     */
+    private class Search {
+
+        private final KnapsackData data;
+        private final long start = System.nanoTime();
+        // items that are always selected (zero weight, positive profit) and their total profit
+        private final int[] fixedIDs;
+        private final double fixedProfit;
+        // free items in order of decreasing efficiency, with their weights and profits
+        private final int[] ids;
+        private final double[] w, p;
+        // prefix sums: sumW[k] and sumP[k] are the total weight and profit of the first k free items
+        private final double[] sumW, sumP;
+        private final boolean integerProfits;
+        // current path and best solution
+        private final byte[] state;
+        private final boolean[] best;
+        private double bestProfit = 0.0;
+        private long nodes = 0;
+
+        Search(KnapsackData data){
+            this.data = data;
+            int[] sorted = data.getEfficiencyOrder();
+            int[] free = new int[sorted.length];
+            int[] fixed = new int[sorted.length];
+            int numFree = 0, numFixed = 0;
+            double fixedP = 0.0;
+            boolean integers = true;
+            for(int id : sorted){
+                double weight = data.getWeight(id);
+                double profit = data.getProfit(id);
+                if(weight < 0){
+                    throw new IllegalArgumentException("Negative weight of item " + id + ": " + weight);
+                }
+                if(profit <= 0 || weight > capacity){
+                    // never selected in an optimal solution
+                    continue;
+                }
+                if(weight == 0){
+                    fixed[numFixed++] = id;
+                    fixedP += profit;
+                } else {
+                    free[numFree++] = id;
+                }
+                integers &= profit == Math.rint(profit);
+            }
+            fixedIDs = new int[numFixed];
+            System.arraycopy(fixed, 0, fixedIDs, 0, numFixed);
+            fixedProfit = fixedP;
+            integerProfits = integers;
+            ids = new int[numFree];
+            System.arraycopy(free, 0, ids, 0, numFree);
+            w = new double[numFree];
+            p = new double[numFree];
+            sumW = new double[numFree + 1];
+            sumP = new double[numFree + 1];
+            for(int i = 0; i < numFree; i++){
+                w[i] = data.getWeight(ids[i]);
+                p[i] = data.getProfit(ids[i]);
+                sumW[i + 1] = sumW[i] + w[i];
+                sumP[i + 1] = sumP[i] + p[i];
+            }
+            state = new byte[numFree];
+            best = new boolean[numFree];
+        }
+
+        /**
+         * Computes the Dantzig bound on the profit that can be added with items i, i+1, ... and the given residual
+         * capacity: the greedy fill up to the break item plus the fitting fraction of the break item.
+         */
+        private double bound(int i, double residual){
+            // find the break item: the first k such that items i..k-1 fit and item k does not
+            double limit = sumW[i] + residual;
+            int lo = i, hi = ids.length;
+            while(lo < hi){
+                int mid = (lo + hi + 1) >>> 1;
+                if(sumW[mid] <= limit){
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            double bound = sumP[lo] - sumP[i];
+            if(lo < ids.length){
+                bound += (residual - (sumW[lo] - sumW[i])) * p[lo] / w[lo];
+            }
+            return bound;
+        }
+
+        /**
+         * Checks whether a branch with the given profit and additional bound can still improve the best solution.
+         */
+        private boolean promising(double profit, double bound){
+            double ub = profit + bound;
+            if(integerProfits){
+                // tolerate rounding errors in the prefix sums
+                ub = Math.floor(ub + 1e-9);
+            }
+            return ub > bestProfit;
+        }
+
+        Result run(){
+            int n = ids.length;
+            boolean timedOut = false;
+            int i = 0;
+            double residual = capacity;
+            double profit = 0.0;
+            // true when moving down to a new node, false when backtracking
+            boolean down = true;
+            while(true){
+                if(down){
+                    nodes++;
+                    if(nodes % TIME_CHECK_INTERVAL == 0 && (stopRequested || System.nanoTime() - start >= timeLimit)){
+                        timedOut = true;
+                        break;
+                    }
+                    if(i == n){
+                        if(profit > bestProfit){
+                            bestProfit = profit;
+                            for(int k = 0; k < n; k++){
+                                best[k] = state[k] == INCLUDED;
+                            }
+                        }
+                        down = false;
+                    } else if(!promising(profit, bound(i, residual))){
+                        down = false;
+                    } else if(w[i] <= residual){
+                        state[i] = INCLUDED;
+                        residual -= w[i];
+                        profit += p[i];
+                        i++;
+                    } else {
+                        state[i] = EXCLUDED;
+                        i++;
+                    }
+                } else {
+                    // backtrack to the deepest item whose exclusion branch has not been explored
+                    i--;
+                    while(i >= 0 && state[i] == EXCLUDED){
+                        state[i] = NEW;
+                        i--;
+                    }
+                    if(i < 0){
+                        break;
+                    }
+                    state[i] = EXCLUDED;
+                    residual += w[i];
+                    profit -= p[i];
+                    i++;
+                    down = true;
+                }
+            }
+            double upperBound = bestProfit;
+            if(timedOut){
+                upperBound = Math.max(upperBound, openBound(i));
+            }
+            return createResult(upperBound);
+        }
+
+        /**
+         * Computes an upper bound on the profit of all branches that were not yet explored when the search was
+         * interrupted at the given depth: the current node and the exclusion branches of the items included on the
+         * path to it.
+         */
+        private double openBound(int depth){
+            double ub = Double.NEGATIVE_INFINITY;
+            double residual = capacity;
+            double profit = 0.0;
+            for(int k = 0; k < depth; k++){
+                if(state[k] == INCLUDED){
+                    // exclusion branch of item k is still open
+                    ub = Math.max(ub, profit + bound(k + 1, residual));
+                    residual -= w[k];
+                    profit += p[k];
+                }
+            }
+            // the current node
+            ub = Math.max(ub, depth < ids.length ? profit + bound(depth, residual) : profit);
+            return integerProfits ? Math.floor(ub + 1e-9) : ub;
+        }
+
+        private Result createResult(double upperBound){
+            SubsetSolution solution = new SubsetSolution(data.getIDs());
+            double weight = 0.0;
+            for(int id : fixedIDs){
+                solution.select(id);
+            }
+            for(int k = 0; k < ids.length; k++){
+                if(best[k]){
+                    solution.select(ids[k]);
+                    weight += w[k];
+                }
+            }
+            long runtime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return new Result(solution, fixedProfit + bestProfit, weight, fixedProfit + upperBound, nodes, runtime);
+        }
+
+    }
+
+}
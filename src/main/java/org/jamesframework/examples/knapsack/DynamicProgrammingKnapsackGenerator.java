@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jamesframework.examples.knapsack;
+
+import java.util.Random;
+import org.jamesframework.core.problems.sol.RandomSolutionGenerator;
+import org.jamesframework.core.subset.SubsetSolution;
+
+/**
+ * Seeds the search with an optimal solution computed by dynamic programming over the capacity. Only applies to
+ * instances with non-negative integer weights for which the table (items x capacity, one bit per cell) stays below
+ * a configurable number of cells, and the row of best profits (capacity doubles of 64 bits each) below as many bits;
+ * otherwise falls back to the greedy generator. The optimum is computed once per data set and copied for every
+ * call.
+ */
+public class DynamicProgrammingKnapsackGenerator implements RandomSolutionGenerator<SubsetSolution, KnapsackData> {
+
+    // default maximum table size: 1e8 cells (12.5 MB of decision bits, and at most 12.5 MB of best profits)
+    public static final long DEFAULT_MAX_CELLS = 100_000_000L;
+
+    private final double capacity;
+    private final long maxCells;
+    private final GreedyKnapsackGenerator greedy;
+    // optimal solution for the last data set seen by this generator
+    private volatile KnapsackData optimumData;
+    private volatile SubsetSolution optimum;
+
+    public DynamicProgrammingKnapsackGenerator(double capacity){
+        this(capacity, DEFAULT_MAX_CELLS);
+    }
+
+    public DynamicProgrammingKnapsackGenerator(double capacity, long maxCells){
+        this.capacity = capacity;
+        this.maxCells = maxCells;
+        greedy = new GreedyKnapsackGenerator(capacity);
+    }
+
+    @Override
+    public SubsetSolution create(Random rnd, KnapsackData data) {
+        int n = data.getIDs().size();
+        int[] ids = new int[n];
+        for(int id = 0; id < n; id++){
+            ids[id] = id;
+        }
+        if(!isApplicable(data, ids, capacity, maxCells)){
+            return greedy.create(rnd, data);
+        }
+        SubsetSolution opt = optimum;
+        if(opt == null || optimumData != data){
+            opt = new SubsetSolution(data.getIDs());
+            for(int id : solve(data, ids, (int) Math.floor(capacity))){
+                opt.select(id);
+            }
+            optimum = opt;
+            optimumData = data;
+        }
+        return opt.copy();
+    }
+
+    /**
+     * Checks whether the given items all have non-negative integer weights and the DP table fits within the
+     * given number of cells. The row of best profits takes 64 bits per unit of capacity, so the capacity is also
+     * bounded by a 64th of the number of cells.
+     */
+    static boolean isApplicable(KnapsackData data, int[] ids, double capacity, long maxCells){
+        long width = (long) capacity + 1;
+        if(capacity < 0 || capacity >= Integer.MAX_VALUE || width > maxCells / 64 || ids.length * width > maxCells){
+            return false;
+        }
+        for(int id : ids){
+            double w = data.getWeight(id);
+            if(w < 0 || w != Math.rint(w)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Solves the knapsack problem restricted to the given items exactly, assuming integer weights.
+     *
+     * @param data knapsack data
+     * @param ids items to consider
+     * @param capacity integer capacity
+     * @return the selected items of an optimal solution
+     */
+    static int[] solve(KnapsackData data, int[] ids, int capacity){
+        int n = ids.length;
+        int width = capacity + 1;
+        // best[c] = maximum profit using total weight at most c
+        double[] best = new double[width];
+        // decision bits: item i is taken in the optimum of capacity c
+        long[] take = new long[(int) (((long) n * width + 63) >>> 6)];
+        for(int i = 0; i < n; i++){
+            int w = (int) data.getWeight(ids[i]);
+            double p = data.getProfit(ids[i]);
+            long row = (long) i * width;
+            for(int c = capacity; c >= w; c--){
+                double withItem = best[c - w] + p;
+                if(withItem > best[c]){
+                    best[c] = withItem;
+                    long bit = row + c;
+                    take[(int) (bit >>> 6)] |= 1L << bit;
+                }
+            }
+        }
+        // backtrack
+        int[] selected = new int[n];
+        int numSelected = 0;
+        int c = capacity;
+        for(int i = n - 1; i >= 0; i--){
+            long bit = (long) i * width + c;
+            if((take[(int) (bit >>> 6)] & (1L << bit)) != 0){
+                selected[numSelected++] = ids[i];
+                c -= (int) data.getWeight(ids[i]);
+            }
+        }
+        int[] result = new int[numSelected];
+        System.arraycopy(selected, 0, result, 0, numSelected);
+        return result;
+    }
+
+}
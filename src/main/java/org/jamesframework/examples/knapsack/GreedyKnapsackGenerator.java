@@ -0,0 +1,56 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jamesframework.examples.knapsack;
+
+import java.util.Random;
+import org.jamesframework.core.problems.sol.RandomSolutionGenerator;
+import org.jamesframework.core.subset.SubsetSolution;
+
+/**
+ * Initial solution generator that fills the knapsack greedily: items are considered in order of decreasing
+ * profit/weight ratio and added whenever they still fit, using the sorted index precomputed by {@link KnapsackData}.
+ */
+public class GreedyKnapsackGenerator implements RandomSolutionGenerator<SubsetSolution, KnapsackData> {
+
+    // knapsack capacity
+    private final double capacity;
+
+    public GreedyKnapsackGenerator(double capacity){
+        this.capacity = capacity;
+    }
+
+    @Override
+    public SubsetSolution create(Random rnd, KnapsackData data) {
+        return fill(new SubsetSolution(data.getIDs()), data.getEfficiencyOrder(), data, capacity);
+    }
+
+    /**
+     * Adds the items in the given order whenever they still fit within the capacity.
+     */
+    static SubsetSolution fill(SubsetSolution sol, int[] order, KnapsackData data, double capacity){
+        double weight = 0.0;
+        for(int id : order){
+            double w = data.getWeight(id);
+            if(weight + w <= capacity){
+                sol.select(id);
+                weight += w;
+            }
+        }
+        return sol;
+    }
+
+}
@@ -16,18 +16,29 @@
 
 package org.jamesframework.examples.knapsack;
 
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
-import org.jamesframework.core.problems.objectives.evaluations.Evaluation;
 import org.jamesframework.core.problems.sol.RandomSolutionGenerator;
+import org.jamesframework.core.search.LocalSearch;
+import org.jamesframework.core.search.Search;
 import org.jamesframework.core.subset.SubsetProblem;
 import org.jamesframework.core.subset.SubsetSolution;
 import org.jamesframework.core.search.algo.ParallelTempering;
 import org.jamesframework.core.search.algo.RandomDescent;
 import org.jamesframework.core.subset.neigh.SinglePerturbationNeighbourhood;
 import org.jamesframework.core.search.stopcriteria.MaxRuntime;
+import org.jamesframework.core.search.stopcriteria.MaxTimeWithoutImprovement;
 import org.jamesframework.core.util.SetUtilities;
-import org.jamesframework.examples.util.ProgressSearchListener;
+import org.jamesframework.examples.util.AdaptiveTemperatureLadder;
+import org.jamesframework.examples.util.IslandModel;
+import org.jamesframework.examples.util.MetricsSearchListener;
+import org.jamesframework.examples.util.Portfolio;
+import org.jamesframework.examples.util.SolverResult;
+import org.jamesframework.examples.util.TargetValue;
+import org.jamesframework.examples.util.TemperingReplica;
 
 /**
  * Main class for the knapsack example (example 2A).
@@ -35,32 +46,62 @@ import org.jamesframework.examples.util.ProgressSearchListener;
  * @author <a href="mailto:herman.debeukelaer@ugent.be">Herman De Beukelaer</a>
  */
 public class Knapsack {
+
+    /**
+     * Construction heuristics for the initial solutions of the searches.
+     */
+    public enum Initializer {
+        /** Random selection trimmed to the capacity, then reduced to a random subset. */
+        RANDOM,
+        /** Greedy by decreasing profit/weight ratio (always the same solution). */
+        GREEDY,
+        /** GRASP-style randomized greedy, different for every initial solution. */
+        RANDOMIZED_GREEDY,
+        /** Exact dynamic programming optimum for integer weights, greedy otherwise. */
+        DYNAMIC_PROGRAMMING
+    }
+    
+    private static final Initializer INITIALIZER = Initializer.RANDOMIZED_GREEDY;
+    // a search stops when its best solution has not improved for this many seconds; 0 for no limit
+    private static final int MAX_SECS_WITHOUT_IMPROVEMENT = 0;
+    // run the searches on the core of the instance only (see KnapsackReduction)
+    private static final boolean REDUCE = true;
+    // parallel tempering: calibrate and adapt the temperature ladder (see AdaptiveTemperatureLadder); otherwise use
+    // temperatures relative to the average profit, and NUM_REPLICAS replicas when the algorithms run sequentially
+    static final boolean AUTO_TUNE = true;
+    static final int NUM_REPLICAS = 10;
+    static final int MIN_REPLICAS = 4;
+    // island model: maximum time between two migrations of an island (see IslandModel)
+    private static final long MIGRATION_INTERVAL_MILLIS = IslandModel.DEFAULT_MIGRATION_INTERVAL_MILLIS;
+    // run all algorithms concurrently within the time limit (see Portfolio); otherwise one after the other
+    private static final boolean PORTFOLIO = true;
         
     /**
      * Runs the knapsack problem. Expects three parameters: (1) the input file path, (2) the capacity of the knapsack
-     * and (3) the runtime limit (in seconds). The input is specified in a text file in which the first row contains
+     * and (3) the runtime limit (in seconds), optionally followed by (4) a target profit, e.g. the known optimum, at
+     * which the searches stop. The input is specified in a text file in which the first row contains
      * a single number N that indicates number of available knapsack items. The next N rows each contain the profit
      * and weight (in this order) of a single item, separated by one or more spaces.
      * 
-     * @param args array containing the input file path, knapsack capacity and runtime limit
+     * @param args array containing the input file path, knapsack capacity, runtime limit and target profit
      */
     public static void main(String[] args) {
         System.out.println("########################");
         System.out.println("# 0/1 KNAPSACK PROBLEM #");
         System.out.println("########################");
         // parse arguments
-        if(args.length != 3){
-            System.err.println("Usage: java -cp james-examples.jar org.jamesframework.examples.knapsack.KnapSack <inputfile> <capacity> <runtime>");
+        if(args.length != 3 && args.length != 4){
+            System.err.println("Usage: java -cp james-examples.jar org.jamesframework.examples.knapsack.KnapSack <inputfile> <capacity> <runtime> [<target>]");
             System.exit(1);
         }
-//        String filePath = args[0];
-        String filePath = "src/main/resources/knapsack-100";
+        String filePath = args[0];
         double capacity = Double.parseDouble(args[1]);
         int timeLimit = Integer.parseInt(args[2]);
-        run(filePath, capacity, timeLimit);
+        double targetProfit = args.length == 4 ? Double.parseDouble(args[3]) : Double.NaN;
+        run(filePath, capacity, timeLimit, targetProfit);
     }
     
-    private static void run(String filePath, double capacity, int timeLimit){
+    private static void run(String filePath, double capacity, int timeLimit, double targetProfit){
         
         /***************/
         /* PARSE INPUT */
@@ -71,7 +112,7 @@ public class Knapsack {
         
         try {
             
-            KnapsackData data = new KnapsackFileReader().read(filePath);
+            KnapsackData data = readInstance(filePath);
         
             /*********************/
             /* OPTIMIZE KNAPSACK */
@@ -82,119 +123,151 @@ public class Knapsack {
             System.out.println("Dataset size: " + data.getIDs().size());
             System.out.println("Knapsack capacity: " + capacity);
             System.out.println("Time limit: " + timeLimit + " seconds");
+            if(!Double.isNaN(targetProfit)){
+                System.out.println("Target profit: " + targetProfit);
+            }
+
+            // reduce the instance: the searches only consider the core items, which are not fixed in or out
+            KnapsackReduction reduction = null;
+            KnapsackData searchData = data;
+            double searchCapacity = capacity;
+            double searchTargetProfit = targetProfit;
+            if(REDUCE){
+                reduction = new KnapsackReduction(data, capacity);
+                System.out.println("Reduction: " + reduction);
+                if(reduction.getCoreSize() > 0){
+                    searchData = reduction.getCoreData();
+                    searchCapacity = reduction.getCoreCapacity();
+                    searchTargetProfit = targetProfit - reduction.getFixedProfit();
+                } else {
+                    // nothing left to search for, the searches run on the full instance
+                    reduction = null;
+                }
+            }
 
-            // create objective
-            KnapsackObjective obj = new KnapsackObjective();
-                        
-            // create constraint
-            KnapsackConstraint constraint = new KnapsackConstraint(capacity);
-            // create subset problem (all sizes allowed)
-            SubsetProblem<KnapsackData> problem = new SubsetProblem<>(data, obj);
-            // add mandatory constraint
-            problem.addMandatoryConstraint(constraint);
+            // create subset problem with knapsack constraint and initializer
+            System.out.println("Initializer: " + INITIALIZER);
+            SubsetProblem<KnapsackData> problem = createProblem(searchData, searchCapacity, INITIALIZER);
             
-            /**************************************************/
-            /* Set custom random solution generator to ensure */
-            /* initial selection within knapsack capacity     */
-            /**************************************************/
+            // all algorithms run within the same time limit, concurrently on their share of the cores, or one after
+            // the other on all cores; random descent and branch and bound are single-threaded, parallel tempering
+            // and the island model share the remaining cores
+            int numCores = Runtime.getRuntime().availableProcessors();
+            int[] cores = PORTFOLIO
+                            ? Portfolio.partitionCores(numCores, false, true, true, false)
+                            : new int[]{numCores, numCores, numCores, numCores};
+            Portfolio<SubsetSolution> portfolio = new Portfolio<>(false);
+            portfolio.setConcurrent(PORTFOLIO);
+            portfolio.setTargetScore(targetProfit);
             
-            // retrieve default random solution generator
-            RandomSolutionGenerator<? extends SubsetSolution, ? super KnapsackData> defaultRndSolGen = problem.getRandomSolutionGenerator();
+            // random descent with single perturbation neighbourhood
+            RandomDescent<SubsetSolution> randomDescent = new RandomDescent<>(problem, new SinglePerturbationNeighbourhood());
+            // set maximum runtime, target and stagnation limit
+            addStopCriteria(randomDescent, timeLimit, searchTargetProfit);
+            // attach listener
+            MetricsSearchListener randomDescentMetrics = new MetricsSearchListener();
+            randomDescent.addSearchListener(randomDescentMetrics);
+            portfolio.add("Random descent", cores[0], new SearchMember(filePath, randomDescent, data, reduction));
+            
+            // parallel tempering with single perturbation neighbourhood: concurrently, one replica per core of its
+            // share; sequentially, one per core or a fixed number of replicas
+            int numReplicas = PORTFOLIO
+                                ? Math.max(2, cores[1])
+                                : (AUTO_TUNE ? Math.max(MIN_REPLICAS, cores[1]) : NUM_REPLICAS);
+            List<TemperingReplica<SubsetSolution>> replicas = new ArrayList<>(numReplicas);
+            ParallelTempering<SubsetSolution> parallelTempering = createParallelTempering(problem, numReplicas,
+                                                                                          AUTO_TUNE, replicas);
+            // adapt the temperature ladder during the search
+            AdaptiveTemperatureLadder ladder = null;
+            if(AUTO_TUNE){
+                ladder = new AdaptiveTemperatureLadder(replicas);
+                parallelTempering.addSearchListener(ladder);
+            }
+            // set maximum runtime, target and stagnation limit
+            addStopCriteria(parallelTempering, timeLimit, searchTargetProfit);
+            // attach listener
+            MetricsSearchListener parallelTemperingMetrics = new MetricsSearchListener();
+            parallelTempering.addSearchListener(parallelTemperingMetrics);
+            portfolio.add("Parallel tempering", cores[1], new SearchMember(filePath, parallelTempering, data, reduction));
             
-            // set custom generator
-            problem.setRandomSolutionGenerator((r,d) -> {
-                // 1: create default random initial solution
-                SubsetSolution sol = defaultRndSolGen.create(r, d);
-                // 2: compute current total weight
-                double weight = computeSelectionWeight(sol, d);
-                // 3: remove random items as long as total weight is larger than the capacity
-                while(weight > capacity){
-                    int id = SetUtilities.getRandomElement(sol.getSelectedIDs(), r);
-                    sol.deselect(id);
-                    weight -= data.getWeight(id);
+            // island model: random descent islands, one per core of its share (at least two when run sequentially),
+            // exchanging their best solutions every MIGRATION_INTERVAL_MILLIS ms; if the share leaves room for the
+            // replicas next to at least one random descent island, one of the islands is a parallel tempering
+            // search with MIN_REPLICAS replicas, each on its own core
+            boolean temperingIsland = cores[2] > MIN_REPLICAS;
+            int numIslands = temperingIsland
+                                ? cores[2] - MIN_REPLICAS + 1
+                                : (PORTFOLIO ? cores[2] : Math.max(2, cores[2]));
+            List<LocalSearch<SubsetSolution>> islands = new ArrayList<>(numIslands);
+            if(temperingIsland){
+                List<TemperingReplica<SubsetSolution>> islandReplicas = new ArrayList<>(MIN_REPLICAS);
+                ParallelTempering<SubsetSolution> islandTempering = createParallelTempering(problem, MIN_REPLICAS,
+                                                                                            AUTO_TUNE, islandReplicas);
+                if(AUTO_TUNE){
+                    islandTempering.addSearchListener(new AdaptiveTemperatureLadder(islandReplicas));
                 }
-                // 4: retain random subset to increase initial solution variability
-                int finalSize = r.nextInt(sol.getNumSelectedIDs()+1);
-                sol.deselectAll(SetUtilities.getRandomSubset(sol.getSelectedIDs(),
-                                                                         sol.getNumSelectedIDs()-finalSize,
-                                                                         r));
-                return sol;
-            });
+                islands.add(islandTempering);
+            }
+            while(islands.size() < numIslands){
+                islands.add(new RandomDescent<>(problem, new SinglePerturbationNeighbourhood()));
+            }
+            IslandModel<SubsetSolution> islandModel = new IslandModel<>(islands, timeLimit, TimeUnit.SECONDS);
+            islandModel.setMigrationInterval(MIGRATION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            islandModel.setTargetValue(searchTargetProfit);
+            portfolio.add("Island model", cores[2], new IslandModelMember(filePath, islandModel, data, reduction));
+            
+            // exact search on the full instance, stopped at the time limit with a proven gap
+            BranchAndBoundKnapsack branchAndBound = new BranchAndBoundKnapsack(capacity);
+            branchAndBound.setTimeLimit(timeLimit, TimeUnit.SECONDS);
+            BranchAndBoundMember branchAndBoundMember = new BranchAndBoundMember(filePath, branchAndBound, data);
+            portfolio.add("Branch and bound", cores[3], branchAndBoundMember);
             
             /******************/
-            /* RANDOM DESCENT */
+            /* RUN ALGORITHMS */
             /******************/
             
-            System.out.println("# RANDOM DESCENT");
+            System.out.println("# RUNNING " + (PORTFOLIO ? "CONCURRENTLY" : "SEQUENTIALLY") + " ON " + numCores + " CORES");
+            portfolio.run();
+            List<Portfolio<SubsetSolution>.Entry> entries = portfolio.getEntries();
             
-            // create random descent search with single perturbation neighbourhood
-            RandomDescent<SubsetSolution> randomDescent = new RandomDescent<>(problem, new SinglePerturbationNeighbourhood());
-            // set maximum runtime
-            randomDescent.addStopCriterion(new MaxRuntime(timeLimit, TimeUnit.SECONDS));
-            // attach listener
-            randomDescent.addSearchListener(new ProgressSearchListener());
-
-            // start search
-            randomDescent.start();
-            // print results
-            Integer randomDescentKnapsackSize = null;
-            Evaluation randomDescentKnapsackProfit = null;
-            Double randomDescentKnapsackWeight = null;
-            if(randomDescent.getBestSolution() != null){
-                randomDescentKnapsackSize = randomDescent.getBestSolution().getNumSelectedIDs();
-                System.out.println("Items in knapsack: " + randomDescentKnapsackSize + "/" + data.getIDs().size());
-                randomDescentKnapsackProfit = randomDescent.getBestSolutionEvaluation();
-                System.out.println("Total profit: " + randomDescentKnapsackProfit);
-                randomDescentKnapsackWeight = computeSelectionWeight(randomDescent.getBestSolution(), data);
-                System.out.println("Total weight: " + randomDescentKnapsackWeight + "/" + capacity);
-            } else {
-                System.out.println("No valid solution found...");
-            }
-            // dispose search
+            System.out.println("# RANDOM DESCENT");
+            printResult(entries.get(0).getResult(), data, capacity);
+            System.out.println("Search metrics: " + randomDescentMetrics.getMetrics());
             randomDescent.dispose();
-           
-            /**********************/
-            /* PARALLEL TEMPERING */
-            /**********************/
             
             System.out.println("# PARALLEL TEMPERING");
-            
-            // set temperature range, scaled according to average profit of knapsack items
-            double scale = computeAverageProfit(data);
-            double minTemp = scale * 0.001;
-            double maxTemp = scale * 0.1;
-            // create parallel tempering with single perturbation neighbourhood
-            int numReplicas = 10;
-            ParallelTempering<SubsetSolution> parallelTempering = new ParallelTempering<>(problem,
-                                                                        new SinglePerturbationNeighbourhood(),
-                                                                        numReplicas, minTemp, maxTemp);
-            System.out.println("Min. temperature: " + minTemp);
-            System.out.println("Max. temperature: " + maxTemp);
-            
-            // set maximum runtime
-            parallelTempering.addStopCriterion(new MaxRuntime(timeLimit, TimeUnit.SECONDS));
-            // attach listener
-            parallelTempering.addSearchListener(new ProgressSearchListener());
-            
-            // start search
-            parallelTempering.start();
-            // print results
-            Integer parallelTemperingKnapsackSize = null;
-            Evaluation parallelTemperingKnapsackProfit = null;
-            Double parallelTemperingKnapsackWeight = null;
-            if(parallelTempering.getBestSolution() != null){
-                parallelTemperingKnapsackSize = parallelTempering.getBestSolution().getNumSelectedIDs();
-                System.out.println("Items in knapsack: " + parallelTemperingKnapsackSize + "/" + data.getIDs().size());
-                parallelTemperingKnapsackProfit = parallelTempering.getBestSolutionEvaluation();
-                System.out.println("Total profit: " + parallelTemperingKnapsackProfit);
-                parallelTemperingKnapsackWeight = computeSelectionWeight(parallelTempering.getBestSolution(), data);
-                System.out.println("Total weight: " + parallelTemperingKnapsackWeight + "/" + capacity);
-            } else {
-                System.out.println("No valid solution found...");
+            System.out.println("Replicas: " + numReplicas);
+            System.out.println("Min. temperature: " + replicas.get(0).getTemperature());
+            System.out.println("Max. temperature: " + replicas.get(numReplicas - 1).getTemperature());
+            printResult(entries.get(1).getResult(), data, capacity);
+            System.out.println("Search metrics: " + parallelTemperingMetrics.getMetrics());
+            if(ladder != null){
+                System.out.println(ladder.formatStatistics());
             }
-            // dispose search
             parallelTempering.dispose();
             
+            System.out.println("# ISLAND MODEL");
+            System.out.println("Islands: " + numIslands);
+            printResult(entries.get(2).getResult(), data, capacity);
+            long[] islandSteps = islandModel.getIslandSteps();
+            long[] islandImmigrants = islandModel.getIslandImmigrants();
+            for(int i = 0; i < numIslands; i++){
+                Search<SubsetSolution> island = islands.get(i);
+                System.out.format("Island %d (%s): %d steps, best %s, %d immigrants\n", i, island.getName(),
+                                  islandSteps[i], island.getBestSolutionEvaluation(), islandImmigrants[i]);
+            }
+            System.out.println("Migrants sent: " + islandModel.getNumMigrantsSent());
+            for(LocalSearch<SubsetSolution> island : islands){
+                island.dispose();
+            }
+            
+            System.out.println("# BRANCH AND BOUND");
+            BranchAndBoundKnapsack.Result branchAndBoundResult = branchAndBoundMember.getResult();
+            printResult(entries.get(3).getResult(), data, capacity);
+            System.out.println("Upper bound: " + branchAndBoundResult.getUpperBound()
+                                + (branchAndBoundResult.isOptimal() ? " (optimal)" : ""));
+            System.out.println("Search statistics: " + branchAndBoundResult);
+            
             /***********/
             /* SUMMARY */
             /***********/
@@ -206,34 +279,309 @@ public class Knapsack {
             System.out.println("Dataset size: " + data.getIDs().size());
             System.out.println("Knapsack capacity: " + capacity);
             System.out.println("Time limit: " + timeLimit + " seconds");
+            System.out.println("Wall time: " + portfolio.getRuntime() + " ms ("
+                                + (PORTFOLIO ? "concurrent" : "sequential") + ")");
             System.out.println("------------------------------------------------------");
 
-            System.out.format("%20s %10s %10s %10s \n", "", "size", "profit", "weight");
-            System.out.format("%20s %10s %10s %10s \n",
-                                "Random descent:",
-                                randomDescentKnapsackSize != null ? randomDescentKnapsackSize : "-",
-                                randomDescentKnapsackProfit != null ? randomDescentKnapsackProfit : "-",
-                                randomDescentKnapsackWeight != null ? randomDescentKnapsackWeight : "-");
-            System.out.format("%20s %10s %10s %10s \n",
-                                "Parallel tempering:",
-                                parallelTemperingKnapsackSize != null ? parallelTemperingKnapsackSize : "-",
-                                parallelTemperingKnapsackProfit != null ? parallelTemperingKnapsackProfit : "-",
-                                parallelTemperingKnapsackWeight != null ? parallelTemperingKnapsackWeight : "-");
+            System.out.format("%20s %10s %10s %10s %8s %10s %12s \n",
+                                "", "size", "profit", "weight", "threads", "time (ms)", "steps");
+            for(Portfolio<SubsetSolution>.Entry entry : entries){
+                SolverResult<SubsetSolution> result = entry.getResult();
+                SubsetSolution solution = result.getSolution();
+                System.out.format("%20s %10s %10s %10s %8s %10s %12s \n",
+                                    entry.getName() + ":",
+                                    solution != null ? solution.getNumSelectedIDs() : "-",
+                                    solution != null ? result.getScore() : "-",
+                                    solution != null ? computeSelectionWeight(solution, data) : "-",
+                                    entry.getThreads(),
+                                    result.getRuntime(),
+                                    result.getSteps());
+            }
+            System.out.println("------------------------------------------------------");
+            Portfolio<SubsetSolution>.Entry best = portfolio.getBest();
+            System.out.println("Best: " + (best != null ? best.getName() + " (" + best.getResult().getScore() + ")" : "-"));
+            Portfolio<SubsetSolution>.Entry winner = portfolio.getWinner();
+            if(winner != null){
+                System.out.println("First final result: " + winner.getName() + " after " + winner.getFinishTime() + " ms");
+            }
+            System.out.format("Upper bound: %s (gap: %.4f%%)\n",
+                                branchAndBoundResult.getUpperBound(), 100 * branchAndBoundResult.getRelativeGap());
             System.out.println("------------------------------------------------------");
             
-        } catch (FileNotFoundException ex) {
+        } catch (IOException ex) {
             System.err.println("Failed to read file: " + filePath);
             System.exit(2);
         }
         
     }
     
-    private static double computeSelectionWeight(SubsetSolution solution, KnapsackData data){
+    /**
+     * Adds the stop criteria used by {@link #main(String[])} to the given search: the runtime limit, the target
+     * profit (if not NaN) and, if {@link #MAX_SECS_WITHOUT_IMPROVEMENT} is set, a stagnation limit. The criteria are
+     * checked every {@value KnapsackSolver#STOP_CRITERION_CHECK_PERIOD_MILLIS} ms so that the search stops soon after
+     * reaching the target.
+     */
+    private static void addStopCriteria(Search<?> search, int timeLimit, double targetProfit){
+        search.addStopCriterion(new MaxRuntime(timeLimit, TimeUnit.SECONDS));
+        if(!Double.isNaN(targetProfit)){
+            search.addStopCriterion(new TargetValue(targetProfit));
+        }
+        if(MAX_SECS_WITHOUT_IMPROVEMENT > 0){
+            search.addStopCriterion(new MaxTimeWithoutImprovement(MAX_SECS_WITHOUT_IMPROVEMENT, TimeUnit.SECONDS));
+        }
+        search.setStopCriterionCheckPeriod(KnapsackSolver.STOP_CRITERION_CHECK_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Reads a knapsack instance, either from a binary file (extension {@code .bin}, see {@link KnapsackBinaryFile})
+     * or from a plain text file.
+     * 
+     * @param filePath path of the instance file
+     * @return the knapsack data
+     * @throws IOException if the file can not be read
+     */
+    public static KnapsackData readInstance(String filePath) throws IOException {
+        // binary instances load without parsing
+        return filePath.endsWith(".bin")
+                ? new KnapsackBinaryFile().read(filePath)
+                : new KnapsackMappedFileReader().read(filePath);
+    }
+    
+    /**
+     * Creates a subset problem for the given knapsack instance, with a mandatory capacity constraint and the
+     * random solution generator corresponding to the given initializer.
+     * 
+     * @param data knapsack data
+     * @param capacity knapsack capacity
+     * @param initializer construction heuristic for initial solutions
+     * @return the knapsack problem
+     */
+    public static SubsetProblem<KnapsackData> createProblem(KnapsackData data, double capacity, Initializer initializer){
+        // create objective
+        KnapsackObjective obj = new KnapsackObjective();
+        // create constraint
+        KnapsackConstraint constraint = new KnapsackConstraint(capacity);
+        // create subset problem (all sizes allowed)
+        SubsetProblem<KnapsackData> problem = new SubsetProblem<>(data, obj);
+        // add mandatory constraint
+        problem.addMandatoryConstraint(constraint);
+        
+        /**************************************************/
+        /* Set custom random solution generator to ensure */
+        /* initial selection within knapsack capacity     */
+        /**************************************************/
+        
+        switch(initializer){
+            case GREEDY:
+                problem.setRandomSolutionGenerator(new GreedyKnapsackGenerator(capacity));
+                break;
+            case RANDOMIZED_GREEDY:
+                problem.setRandomSolutionGenerator(new RandomizedGreedyKnapsackGenerator(capacity));
+                break;
+            case DYNAMIC_PROGRAMMING:
+                problem.setRandomSolutionGenerator(new DynamicProgrammingKnapsackGenerator(capacity));
+                break;
+            default:
+                setRandomTrimmedSolutionGenerator(problem, data, capacity);
+        }
+        return problem;
+    }
+    
+    private static void setRandomTrimmedSolutionGenerator(SubsetProblem<KnapsackData> problem, KnapsackData data, double capacity){
+        // retrieve default random solution generator
+        RandomSolutionGenerator<? extends SubsetSolution, ? super KnapsackData> defaultRndSolGen = problem.getRandomSolutionGenerator();
+        
+        // set custom generator
+        problem.setRandomSolutionGenerator((r,d) -> {
+            // 1: create default random initial solution
+            SubsetSolution sol = defaultRndSolGen.create(r, d);
+            // 2: compute current total weight
+            double weight = computeSelectionWeight(sol, d);
+            // 3: remove random items as long as total weight is larger than the capacity
+            while(weight > capacity){
+                int id = SetUtilities.getRandomElement(sol.getSelectedIDs(), r);
+                sol.deselect(id);
+                weight -= data.getWeight(id);
+            }
+            // 4: retain random subset to increase initial solution variability
+            int finalSize = r.nextInt(sol.getNumSelectedIDs()+1);
+            sol.deselectAll(SetUtilities.getRandomSubset(sol.getSelectedIDs(),
+                                                                     sol.getNumSelectedIDs()-finalSize,
+                                                                     r));
+            return sol;
+        });
+    }
+    
+    /**
+     * Creates a parallel tempering search with a single perturbation neighbourhood. With auto-tuning, the temperature
+     * range is calibrated from sampled moves (see {@link AdaptiveTemperatureLadder#calibrate}); otherwise it is scaled
+     * according to the average profit of the knapsack items.
+     * 
+     * @param problem knapsack problem
+     * @param numReplicas number of replicas
+     * @param autoTune whether to calibrate the temperature range
+     * @param replicas list to which the created replicas are added, in order of increasing temperature
+     * @return the parallel tempering search
+     */
+    static ParallelTempering<SubsetSolution> createParallelTempering(SubsetProblem<KnapsackData> problem,
+                                                                     int numReplicas, boolean autoTune,
+                                                                     List<TemperingReplica<SubsetSolution>> replicas){
+        double minTemp, maxTemp;
+        if(autoTune){
+            double[] range = AdaptiveTemperatureLadder.calibrate(problem, new SinglePerturbationNeighbourhood(),
+                                                                 AdaptiveTemperatureLadder.DEFAULT_NUM_CALIBRATION_SAMPLES,
+                                                                 new Random());
+            minTemp = range[0];
+            maxTemp = range[1];
+        } else {
+            // set temperature range, scaled according to average profit of knapsack items
+            double scale = problem.getData().getAverageProfit();
+            minTemp = scale * 0.001;
+            maxTemp = scale * 0.1;
+        }
+        return new ParallelTempering<SubsetSolution>(problem, new SinglePerturbationNeighbourhood(),
+                                                     numReplicas, minTemp, maxTemp,
+                                                     (p, n, t) -> {
+                                                         TemperingReplica<SubsetSolution> replica = new TemperingReplica<>(p, n, t);
+                                                         replicas.add(replica);
+                                                         return replica;
+                                                     });
+    }
+    
+    /**
+     * Maps the best solution of a search on the core back to the original instance, keeping the greedy solution of
+     * the reduction if that is better. Without reduction, the solution is returned as is.
+     */
+    private static SubsetSolution toOriginal(SubsetSolution solution, KnapsackReduction reduction){
+        return reduction != null ? reduction.toBestOriginal(solution) : solution;
+    }
+    
+    static double computeSelectionProfit(SubsetSolution solution, KnapsackData data){
+        return solution.getSelectedIDs().stream().mapToDouble(data::getProfit).sum();
+    }
+    
+    static double computeSelectionWeight(SubsetSolution solution, KnapsackData data){
         return solution.getSelectedIDs().stream().mapToDouble(data::getWeight).sum();
     }
     
-    private static double computeAverageProfit(KnapsackData data){
-        return data.getIDs().stream().mapToDouble(data::getProfit).average().getAsDouble();
+    private static void printResult(SolverResult<SubsetSolution> result, KnapsackData data, double capacity){
+        SubsetSolution solution = result.getSolution();
+        if(solution != null){
+            System.out.println("Items in knapsack: " + solution.getNumSelectedIDs() + "/" + data.getIDs().size());
+            System.out.println("Total profit: " + result.getScore());
+            System.out.println("Total weight: " + computeSelectionWeight(solution, data) + "/" + capacity);
+        } else {
+            System.out.println("No valid solution found...");
+        }
+    }
+    
+    /**
+     * Portfolio member running a JAMES search, possibly on the core of the instance. The result is mapped back to
+     * the original instance.
+     */
+    private static class SearchMember implements Portfolio.Member<SubsetSolution> {
+        
+        private final String name;
+        private final LocalSearch<SubsetSolution> search;
+        private final KnapsackData data;
+        private final KnapsackReduction reduction;
+        // also stops the search if it has not started yet when stop() is called
+        private volatile boolean stopped = false;
+        
+        SearchMember(String name, LocalSearch<SubsetSolution> search, KnapsackData data, KnapsackReduction reduction){
+            this.name = name;
+            this.search = search;
+            this.data = data;
+            this.reduction = reduction;
+            search.addStopCriterion(s -> stopped);
+        }
+        
+        @Override
+        public SolverResult<SubsetSolution> run(){
+            search.start();
+            SubsetSolution best = toOriginal(search.getBestSolution(), reduction);
+            double profit = best != null ? computeSelectionProfit(best, data) : Double.NaN;
+            return new SolverResult<>(name, best, profit, search.getRuntime(), search.getSteps());
+        }
+        
+        @Override
+        public void stop(){
+            stopped = true;
+            search.stop();
+        }
+        
+    }
+    
+    /**
+     * Portfolio member running an island model, possibly on the core of the instance.
+     */
+    private static class IslandModelMember implements Portfolio.Member<SubsetSolution> {
+        
+        private final String name;
+        private final IslandModel<SubsetSolution> islandModel;
+        private final KnapsackData data;
+        private final KnapsackReduction reduction;
+        
+        IslandModelMember(String name, IslandModel<SubsetSolution> islandModel, KnapsackData data,
+                          KnapsackReduction reduction){
+            this.name = name;
+            this.islandModel = islandModel;
+            this.data = data;
+            this.reduction = reduction;
+        }
+        
+        @Override
+        public SolverResult<SubsetSolution> run(){
+            SubsetSolution best = toOriginal(islandModel.run(), reduction);
+            double profit = best != null ? computeSelectionProfit(best, data) : Double.NaN;
+            return new SolverResult<>(name, best, profit, islandModel.getRuntime(), islandModel.getTotalSteps());
+        }
+        
+        @Override
+        public void stop(){
+            islandModel.stop();
+        }
+        
+    }
+    
+    /**
+     * Portfolio member running branch-and-bound on the full instance; the number of steps is the number of visited
+     * nodes.
+     */
+    private static class BranchAndBoundMember implements Portfolio.Member<SubsetSolution> {
+        
+        private final String name;
+        private final BranchAndBoundKnapsack branchAndBound;
+        private final KnapsackData data;
+        private BranchAndBoundKnapsack.Result result;
+        
+        BranchAndBoundMember(String name, BranchAndBoundKnapsack branchAndBound, KnapsackData data){
+            this.name = name;
+            this.branchAndBound = branchAndBound;
+            this.data = data;
+        }
+        
+        @Override
+        public SolverResult<SubsetSolution> run(){
+            result = branchAndBound.solve(data);
+            return new SolverResult<>(name, result.getSolution(), result.getProfit(),
+                                      result.getRuntime(), result.getNodes());
+        }
+        
+        @Override
+        public void stop(){
+            branchAndBound.stop();
+        }
+        
+        @Override
+        public boolean isOptimal(){
+            return result != null && result.isOptimal();
+        }
+        
+        BranchAndBoundKnapsack.Result getResult(){
+            return result;
+        }
+        
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jamesframework.examples.knapsack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes knapsack instances in a compact binary format: a header with the magic number {@code KNAP},
+ * the format version and the number of items N, followed by the N profits and the N weights as little-endian
+ * doubles. Loading comes down to a single bulk read into the profit and weight arrays.
+ */
+public class KnapsackBinaryFile {
+
+    static final int MAGIC = 0x4B4E4150;
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+
+    /**
+     * Converts a plain text knapsack instance to the binary format. Expects two parameters: (1) the input text file
+     * path and (2) the output binary file path.
+     *
+     * @param args array containing the input and output file paths
+     */
+    public static void main(String[] args) {
+        if(args.length != 2){
+            System.err.println("Usage: java -cp james-examples.jar org.jamesframework.examples.knapsack.KnapsackBinaryFile <inputfile> <outputfile>");
+            System.exit(1);
+        }
+        try {
+            KnapsackData data = new KnapsackMappedFileReader().read(args[0]);
+            new KnapsackBinaryFile().write(data, args[1]);
+            System.out.println("Converted " + data.getIDs().size() + " items: " + args[0] + " -> " + args[1]);
+        } catch (IOException ex) {
+            System.err.println("Failed to convert file: " + args[0] + " (" + ex.getMessage() + ")");
+            System.exit(2);
+        }
+    }
+
+    public KnapsackData read(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size < HEADER_BYTES || size > Integer.MAX_VALUE){
+                throw new IOException("Invalid binary knapsack file size: " + filePath + " (" + size + " bytes)");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+            while(buffer.hasRemaining()){
+                if(channel.read(buffer) < 0){
+                    throw new IOException("Unexpected end of file: " + filePath);
+                }
+            }
+            buffer.flip();
+            // check header
+            if(buffer.getInt() != MAGIC){
+                throw new IOException("Not a binary knapsack file: " + filePath);
+            }
+            int version = buffer.getInt();
+            if(version != VERSION){
+                throw new IOException("Unsupported binary knapsack file version " + version + ": " + filePath);
+            }
+            int n = buffer.getInt();
+            if(n < 0 || size != HEADER_BYTES + 2L * n * Double.BYTES){
+                throw new IOException("Corrupt binary knapsack file (" + n + " items, " + size + " bytes): " + filePath);
+            }
+            // bulk read profits and weights
+            double[] profits = new double[n];
+            double[] weights = new double[n];
+            buffer.asDoubleBuffer().get(profits).get(weights);
+            return new KnapsackData(weights, profits);
+        }
+    }
+
+    public void write(KnapsackData data, String filePath) throws IOException {
+        int n = data.getIDs().size();
+        long size = HEADER_BYTES + 2L * n * Double.BYTES;
+        if(size > Integer.MAX_VALUE){
+            throw new IOException("Too many items for a binary knapsack file: " + n);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(n);
+        for(int id = 0; id < n; id++){
+            buffer.putDouble(data.getProfit(id));
+        }
+        for(int id = 0; id < n; id++){
+            buffer.putDouble(data.getWeight(id));
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.WRITE,
+                                                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+        }
+    }
+
+}
@@ -58,10 +58,8 @@ public class KnapsackConstraint implements Constraint<SubsetSolution, KnapsackDa
         KnapsackValidation kVal = (KnapsackValidation) curValidation;
         // extract current sum of weights
         double weight = kVal.getCurWeight();
-        // account for added items
-        weight += subsetMove.getAddedIDs().stream().mapToDouble(data::getWeight).sum();
-        // account for removed items
-        weight -= subsetMove.getDeletedIDs().stream().mapToDouble(data::getWeight).sum();
+        // account for added and removed items
+        weight += KnapsackDelta.weightDelta(subsetMove, data);
         // return updated validation
         return new KnapsackValidation(weight, maxWeight);
     }
@@ -16,47 +16,300 @@
 
 package org.jamesframework.examples.knapsack;
 
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Set;
 import org.jamesframework.core.problems.datatypes.IntegerIdentifiedData;
+import org.jamesframework.examples.util.IntRangeSet;
 
 /**
  * Provides the data for the knapsack problem by specifying the weight and profit of each item.
+ * <p>
+ * Derived data is computed once, when the data is created: the item IDs sorted by decreasing profit/weight ratio
+ * (using a parallel sort), prefix sums of the weights and profits in this order, and aggregate statistics. Greedy
+ * heuristics, fractional (Dantzig) bounds and temperature scaling therefore do not have to recompute ratios or sort.
+ * <p>
+ * Weights and profits are stored in two separate arrays by default. Alternatively, they can be interleaved in a single
+ * array, so that the weight and profit of an item, which are usually read together when evaluating a move, share a
+ * cache line.
  * 
  * @author <a href="mailto:herman.debeukelaer@ugent.be">Herman De Beukelaer</a>
  */
 public class KnapsackData implements IntegerIdentifiedData {
 
-    // weights
+    // weights (null if interleaved)
     private final double[] weights;
-    // profits
+    // profits (null if interleaved)
     private final double[] profits;
+    // interleaved profits and weights: profit of item i at 2i, weight at 2i+1 (null if not interleaved)
+    private final double[] items;
     // IDs (indices in weight and profit arrays)
     private final Set<Integer> ids;
+    // IDs sorted by decreasing efficiency (profit/weight ratio)
+    private final int[] efficiencyOrder;
+    // prefix sums in efficiency order: total weight and profit of the first k items at index k
+    private final double[] sortedWeightSums;
+    private final double[] sortedProfitSums;
+    // aggregate statistics
+    private final double minWeight, maxWeight, minProfit, maxProfit;
     
     public KnapsackData(double[] weights, double[] profits){
+        this(weights, profits, false);
+    }
+    
+    /**
+     * @param weights item weights
+     * @param profits item profits
+     * @param interleaved whether to store the weights and profits interleaved in a single array
+     */
+    public KnapsackData(double[] weights, double[] profits, boolean interleaved){
+        if(weights.length != profits.length){
+            throw new IllegalArgumentException("Got " + weights.length + " weights but " + profits.length + " profits");
+        }
+        int n = weights.length;
         // store data
-        this.weights = weights;
-        this.profits = profits;
+        if(interleaved){
+            items = new double[2 * n];
+            for(int id = 0; id < n; id++){
+                items[2 * id] = profits[id];
+                items[2 * id + 1] = weights[id];
+            }
+            this.weights = null;
+            this.profits = null;
+        } else {
+            this.weights = weights;
+            this.profits = profits;
+            items = null;
+        }
         // infer IDs: 0..N-1 in case of N items
         // (indices in weight and profit arrays)
-        ids = new HashSet<>();
-        for(int i=0; i<weights.length; i++){
-            ids.add(i);
+        ids = new IntRangeSet(n);
+        // sort by decreasing efficiency, ties by ID
+        double[] efficiencies = new double[n];
+        for(int id = 0; id < n; id++){
+            efficiencies[id] = efficiency(profits[id], weights[id]);
+        }
+        int[] sorted = sortByEfficiency(efficiencies);
+        efficiencyOrder = new int[n];
+        sortedWeightSums = new double[n + 1];
+        sortedProfitSums = new double[n + 1];
+        double minW = Double.POSITIVE_INFINITY, maxW = Double.NEGATIVE_INFINITY;
+        double minP = Double.POSITIVE_INFINITY, maxP = Double.NEGATIVE_INFINITY;
+        for(int k = 0; k < n; k++){
+            int id = sorted[k];
+            efficiencyOrder[k] = id;
+            sortedWeightSums[k + 1] = sortedWeightSums[k] + weights[id];
+            sortedProfitSums[k + 1] = sortedProfitSums[k] + profits[id];
+            minW = Math.min(minW, weights[id]);
+            maxW = Math.max(maxW, weights[id]);
+            minP = Math.min(minP, profits[id]);
+            maxP = Math.max(maxP, profits[id]);
+        }
+        minWeight = minW;
+        maxWeight = maxW;
+        minProfit = minP;
+        maxProfit = maxP;
+    }
+    
+    /**
+     * Sorts the IDs by decreasing efficiency, ties broken by ID. The IDs are packed into primitive keys, with the
+     * efficiency rounded to a float in the high bits and the ID in the low bits, which are sorted with a parallel
+     * sort; runs of items whose efficiencies only differ after rounding are then put in their exact order with a
+     * second packed sort (see {@link #sortRun(int[], int, int, double[])}).
+     */
+    private static int[] sortByEfficiency(double[] efficiencies){
+        int n = efficiencies.length;
+        long[] keys = new long[n];
+        for(int id = 0; id < n; id++){
+            // map the float bits to an int with the same order, then invert it for decreasing order
+            int bits = Float.floatToIntBits((float) efficiencies[id]);
+            bits ^= (bits >> 31) & 0x7fffffff;
+            keys[id] = ((long) ~bits << 32) | id;
+        }
+        Arrays.parallelSort(keys);
+        int[] sorted = new int[n];
+        for(int k = 0; k < n; k++){
+            sorted[k] = (int) keys[k];
+        }
+        // fix the order within runs of equal rounded efficiencies
+        int start = 0;
+        for(int k = 1; k <= n; k++){
+            if(k == n || (keys[k] >>> 32) != (keys[start] >>> 32)){
+                if(k - start > 1){
+                    sortRun(sorted, start, k, efficiencies);
+                }
+                start = k;
+            }
+        }
+        return sorted;
+    }
+    
+    /**
+     * Puts a run of IDs in their exact order of decreasing efficiency, ties broken by ID.
+     * The exact efficiencies are replaced by their rank among the distinct efficiencies of the run, which is packed
+     * with the ID into a primitive key as in {@link #sortByEfficiency(double[])}.
+     */
+    private static void sortRun(int[] sorted, int from, int to, double[] efficiencies){
+        int m = to - from;
+        long[] exact = new long[m];
+        for(int k = 0; k < m; k++){
+            // map the double bits to a long with the same order, then invert it for decreasing order
+            long bits = Double.doubleToLongBits(efficiencies[sorted[from + k]]);
+            bits ^= (bits >> 63) & 0x7fffffffffffffffL;
+            exact[k] = ~bits;
+        }
+        long[] distinct = exact.clone();
+        Arrays.sort(distinct);
+        int numDistinct = 0;
+        for(int k = 0; k < m; k++){
+            if(k == 0 || distinct[k] != distinct[numDistinct - 1]){
+                distinct[numDistinct++] = distinct[k];
+            }
+        }
+        long[] keys = new long[m];
+        for(int k = 0; k < m; k++){
+            long rank = Arrays.binarySearch(distinct, 0, numDistinct, exact[k]);
+            keys[k] = (rank << 32) | sorted[from + k];
+        }
+        Arrays.sort(keys);
+        for(int k = 0; k < m; k++){
+            sorted[from + k] = (int) keys[k];
         }
     }
     
+    private static double efficiency(double profit, double weight){
+        if(weight == 0){
+            // items without weight come first if profitable, last if not
+            return profit > 0 ? Double.POSITIVE_INFINITY : (profit < 0 ? Double.NEGATIVE_INFINITY : 0.0);
+        }
+        return profit / weight;
+    }
+    
     @Override
     public Set<Integer> getIDs() {
         return ids;
     }
     
     public double getWeight(int id){
-        return weights[id];
+        return items != null ? items[2 * id + 1] : weights[id];
     }
     
     public double getProfit(int id){
-        return profits[id];
+        return items != null ? items[2 * id] : profits[id];
+    }
+    
+    /**
+     * @param id item ID
+     * @return profit/weight ratio of the item (infinite for items without weight)
+     */
+    public double getEfficiency(int id){
+        return efficiency(getProfit(id), getWeight(id));
+    }
+    
+    public boolean isInterleaved(){
+        return items != null;
+    }
+    
+    /**
+     * Returns the IDs sorted by decreasing profit/weight ratio, ties broken by ID. The returned array is shared and
+     * should not be modified.
+     * 
+     * @return IDs in order of decreasing efficiency
+     */
+    public int[] getEfficiencyOrder(){
+        return efficiencyOrder;
+    }
+    
+    /**
+     * @param k number of items
+     * @return total weight of the k most efficient items
+     */
+    public double getSortedWeightSum(int k){
+        return sortedWeightSums[k];
+    }
+    
+    /**
+     * @param k number of items
+     * @return total profit of the k most efficient items
+     */
+    public double getSortedProfitSum(int k){
+        return sortedProfitSums[k];
+    }
+    
+    /**
+     * Finds the break item for the given capacity in O(log n): the number of most efficient items that fit in the
+     * knapsack together, which is also the position of the first item that does not fit in the efficiency order.
+     * Assumes that weights are non-negative.
+     * 
+     * @param capacity knapsack capacity
+     * @return position of the break item in the efficiency order, equal to the number of items if all items fit
+     */
+    public int getBreakPosition(double capacity){
+        int lo = 0, hi = efficiencyOrder.length;
+        while(lo < hi){
+            int mid = (lo + hi + 1) >>> 1;
+            if(sortedWeightSums[mid] <= capacity){
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+    
+    /**
+     * Computes the Dantzig upper bound for the given capacity in O(log n): the optimum of the LP relaxation, i.e. the
+     * profit of the most efficient items up to the break item plus the fraction of the break item that still fits.
+     * Assumes that weights are non-negative and profits are positive.
+     * 
+     * @param capacity knapsack capacity
+     * @return fractional upper bound on the optimal profit
+     */
+    public double getDantzigBound(double capacity){
+        int b = getBreakPosition(capacity);
+        double bound = sortedProfitSums[b];
+        if(b < efficiencyOrder.length){
+            int id = efficiencyOrder[b];
+            bound += (capacity - sortedWeightSums[b]) * getEfficiency(id);
+        }
+        return bound;
+    }
+    
+    public double getTotalWeight(){
+        return sortedWeightSums[efficiencyOrder.length];
+    }
+    
+    public double getTotalProfit(){
+        return sortedProfitSums[efficiencyOrder.length];
+    }
+    
+    /**
+     * @return average item weight (NaN if there are no items)
+     */
+    public double getAverageWeight(){
+        return efficiencyOrder.length > 0 ? getTotalWeight() / efficiencyOrder.length : Double.NaN;
+    }
+    
+    /**
+     * @return average item profit (NaN if there are no items)
+     */
+    public double getAverageProfit(){
+        return efficiencyOrder.length > 0 ? getTotalProfit() / efficiencyOrder.length : Double.NaN;
+    }
+    
+    public double getMinWeight(){
+        return minWeight;
+    }
+    
+    public double getMaxWeight(){
+        return maxWeight;
+    }
+    
+    public double getMinProfit(){
+        return minProfit;
+    }
+    
+    public double getMaxProfit(){
+        return maxProfit;
     }
 
 }
\ No newline at end of file
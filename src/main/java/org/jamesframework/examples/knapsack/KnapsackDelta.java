@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jamesframework.examples.knapsack;
+
+import org.jamesframework.core.subset.neigh.moves.AdditionMove;
+import org.jamesframework.core.subset.neigh.moves.DeletionMove;
+import org.jamesframework.core.subset.neigh.moves.SubsetMove;
+import org.jamesframework.core.subset.neigh.moves.SwapMove;
+
+/**
+ * Profit and weight difference caused by applying a subset move, shared by the knapsack objective and constraint.
+ * Single perturbation moves (addition, deletion, swap) are handled with direct array lookups; other moves iterate
+ * over their added and deleted IDs.
+ * <p>
+ * {@link #of(SubsetMove, KnapsackData)} computes both differences in a single pass, for callers that need both.
+ * JAMES validates and evaluates a move through separate calls to the constraint and the objective, so fusing those
+ * would require state that outlives a call (such as a cache of the last move); this is left out on purpose, and the
+ * constraint and objective each compute their own difference. Nothing is cached, so no move or data is kept
+ * reachable after a search.
+ */
+final class KnapsackDelta {
+
+    private final double profit;
+    private final double weight;
+
+    private KnapsackDelta(double profit, double weight){
+        this.profit = profit;
+        this.weight = weight;
+    }
+
+    /**
+     * Computes the profit and weight difference of the given move in a single pass over its IDs.
+     *
+     * @param move subset move
+     * @param data knapsack data
+     * @return profit and weight difference
+     */
+    static KnapsackDelta of(SubsetMove move, KnapsackData data){
+        if(move instanceof AdditionMove){
+            int id = ((AdditionMove) move).getAddedID();
+            return new KnapsackDelta(data.getProfit(id), data.getWeight(id));
+        }
+        if(move instanceof DeletionMove){
+            int id = ((DeletionMove) move).getDeletedID();
+            return new KnapsackDelta(-data.getProfit(id), -data.getWeight(id));
+        }
+        if(move instanceof SwapMove){
+            SwapMove swap = (SwapMove) move;
+            int added = swap.getAddedID(), deleted = swap.getDeletedID();
+            return new KnapsackDelta(data.getProfit(added) - data.getProfit(deleted),
+                                     data.getWeight(added) - data.getWeight(deleted));
+        }
+        double profit = 0.0, weight = 0.0;
+        for(int id : move.getAddedIDs()){
+            profit += data.getProfit(id);
+            weight += data.getWeight(id);
+        }
+        for(int id : move.getDeletedIDs()){
+            profit -= data.getProfit(id);
+            weight -= data.getWeight(id);
+        }
+        return new KnapsackDelta(profit, weight);
+    }
+
+    double getProfit(){
+        return profit;
+    }
+
+    double getWeight(){
+        return weight;
+    }
+
+    static double profitDelta(SubsetMove move, KnapsackData data){
+        if(move instanceof AdditionMove){
+            return data.getProfit(((AdditionMove) move).getAddedID());
+        }
+        if(move instanceof DeletionMove){
+            return -data.getProfit(((DeletionMove) move).getDeletedID());
+        }
+        if(move instanceof SwapMove){
+            SwapMove swap = (SwapMove) move;
+            return data.getProfit(swap.getAddedID()) - data.getProfit(swap.getDeletedID());
+        }
+        double profit = 0.0;
+        for(int id : move.getAddedIDs()){
+            profit += data.getProfit(id);
+        }
+        for(int id : move.getDeletedIDs()){
+            profit -= data.getProfit(id);
+        }
+        return profit;
+    }
+
+    static double weightDelta(SubsetMove move, KnapsackData data){
+        if(move instanceof AdditionMove){
+            return data.getWeight(((AdditionMove) move).getAddedID());
+        }
+        if(move instanceof DeletionMove){
+            return -data.getWeight(((DeletionMove) move).getDeletedID());
+        }
+        if(move instanceof SwapMove){
+            SwapMove swap = (SwapMove) move;
+            return data.getWeight(swap.getAddedID()) - data.getWeight(swap.getDeletedID());
+        }
+        double weight = 0.0;
+        for(int id : move.getAddedIDs()){
+            weight += data.getWeight(id);
+        }
+        for(int id : move.getDeletedIDs()){
+            weight -= data.getWeight(id);
+        }
+        return weight;
+    }
+
+}
@@ -40,6 +40,9 @@ public class KnapsackFileReader {
         double[] weights = new double[n];
         int i=0;
         while(sc.hasNext()){
+            if(i == n){
+                throw new IllegalArgumentException("More than the expected " + n + " items in " + filePath);
+            }
             // read profit
             double profit = sc.nextDouble();
             // read weight
@@ -50,6 +53,9 @@ public class KnapsackFileReader {
             // next item
             i++;
         }
+        if(i < n){
+            throw new IllegalArgumentException("Expected " + n + " items in " + filePath + " but found " + i);
+        }
         // create and return data object
         return new KnapsackData(weights, profits);
     }
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jamesframework.examples.knapsack;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fast reader for the same plain text format as {@link KnapsackFileReader}. The file is memory-mapped and the
+ * numbers are parsed straight from the mapped bytes into the profit and weight arrays, without creating any
+ * intermediate strings. Files larger than 2 GB are not supported.
+ */
+public class KnapsackMappedFileReader {
+
+    // exact powers of ten representable as double
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    // largest mantissa that is exactly representable as double
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    public KnapsackData read(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large to map: " + filePath + " (" + size + " bytes)");
+            }
+            Parser parser = new Parser(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            // read number of available items
+            double header = parser.nextNumber();
+            if (Double.isNaN(header) || header < 0 || header != Math.rint(header)) {
+                throw new IOException("Invalid number of items in " + filePath + ": " + header);
+            }
+            // every item takes at least 4 bytes ("p w\n"): check the count before allocating the arrays
+            if (header > size / 4) {
+                throw new IOException("Invalid number of items in " + filePath + ": " + (long) header
+                                      + " items can not fit in " + size + " bytes");
+            }
+            int n = (int) header;
+            // read all item profits and weights
+            double[] profits = new double[n];
+            double[] weights = new double[n];
+            for (int i = 0; i < n; i++) {
+                profits[i] = parser.nextNumber();
+                weights[i] = parser.nextNumber();
+                if (Double.isNaN(profits[i]) || Double.isNaN(weights[i])) {
+                    throw new IOException("Expected " + n + " items in " + filePath + " but found " + i);
+                }
+            }
+            if (!Double.isNaN(parser.nextNumber())) {
+                throw new IOException("More than the expected " + n + " items in " + filePath);
+            }
+            // create and return data object
+            return new KnapsackData(weights, profits);
+        }
+    }
+
+    /**
+     * Parses numbers from a mapped file.
+     */
+    private static class Parser {
+
+        private final MappedByteBuffer buffer;
+        private final int limit;
+        private int pos = 0;
+
+        Parser(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            this.limit = buffer.limit();
+        }
+
+        /**
+         * Parses the next whitespace separated number.
+         *
+         * @return the parsed number, or NaN if the end of the file was reached
+         * @throws IOException if the next token is not a number
+         */
+        private double nextNumber() throws IOException {
+            // skip whitespace
+            while (pos < limit && buffer.get(pos) <= ' ') {
+                pos++;
+            }
+            if (pos == limit) {
+                return Double.NaN;
+            }
+            int start = pos;
+            boolean negative = false;
+            byte b = buffer.get(pos);
+            if (b == '-' || b == '+') {
+                negative = b == '-';
+                pos++;
+            }
+            long mantissa = 0;
+            int numDigits = 0;
+            int exponent = 0;
+            boolean overflow = false;
+            // integer part
+            while (pos < limit && isDigit(b = buffer.get(pos))) {
+                if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                    mantissa = 10 * mantissa + (b - '0');
+                } else {
+                    overflow = true;
+                }
+                numDigits++;
+                pos++;
+            }
+            // fraction
+            if (pos < limit && buffer.get(pos) == '.') {
+                pos++;
+                while (pos < limit && isDigit(b = buffer.get(pos))) {
+                    if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                        mantissa = 10 * mantissa + (b - '0');
+                        exponent--;
+                    } else {
+                        overflow = true;
+                    }
+                    numDigits++;
+                    pos++;
+                }
+            }
+            // exponent
+            if (pos < limit && ((b = buffer.get(pos)) == 'e' || b == 'E')) {
+                pos++;
+                boolean negativeExp = false;
+                if (pos < limit && ((b = buffer.get(pos)) == '-' || b == '+')) {
+                    negativeExp = b == '-';
+                    pos++;
+                }
+                int exp = 0;
+                int expDigits = 0;
+                while (pos < limit && isDigit(b = buffer.get(pos))) {
+                    exp = Math.min(10 * exp + (b - '0'), 100000);
+                    expDigits++;
+                    pos++;
+                }
+                if (expDigits == 0) {
+                    throw invalidNumber(start);
+                }
+                exponent += negativeExp ? -exp : exp;
+            }
+            if (numDigits == 0 || (pos < limit && buffer.get(pos) > ' ')) {
+                throw invalidNumber(start);
+            }
+            if (overflow || exponent < -22 || exponent > 22) {
+                // rare case: let the JDK handle correct rounding
+                return Double.parseDouble(token(start));
+            }
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+
+        private static boolean isDigit(byte b) {
+            return b >= '0' && b <= '9';
+        }
+
+        private String token(int start) {
+            int end = start;
+            while (end < limit && buffer.get(end) > ' ') {
+                end++;
+            }
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(start + i);
+            }
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+
+        private IOException invalidNumber(int start) {
+            return new IOException("Invalid number at byte " + start + ": " + token(start));
+        }
+
+    }
+
+}
@@ -50,10 +50,8 @@ public class KnapsackObjective implements Objective<SubsetSolution, KnapsackData
         SubsetMove subsetMove = (SubsetMove) move;
         // get current profit
         double value = curEvaluation.getValue();
-        // account for added items
-        value += subsetMove.getAddedIDs().stream().mapToDouble(data::getProfit).sum();
-        // account for removed items
-        value -= subsetMove.getDeletedIDs().stream().mapToDouble(data::getProfit).sum();
+        // account for added and removed items
+        value += KnapsackDelta.profitDelta(subsetMove, data);
         // return updated evaluation
         return SimpleEvaluation.WITH_VALUE(value);
     }    
@@ -0,0 +1,397 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jamesframework.examples.knapsack;
+
+import java.util.Arrays;
+import org.jamesframework.core.subset.SubsetSolution;
+
+/**
+ * Reduces a knapsack instance to its core. Items are sorted by decreasing profit/weight ratio and the break item, the
+ * first item that no longer fits when filling the knapsack in this order, is determined. For every item, the Dantzig
+ * upper bound is computed with the item forced to the opposite of its value in the LP relaxation: if this bound does
+ * not exceed the profit of the greedy solution, no better solution exists with the item flipped, so it is fixed to its
+ * LP value. Items without profit or heavier than the capacity are fixed out, and items with profit but without
+ * weight are fixed in. The remaining items form the core, a usually much smaller instance around the break item that
+ * can be passed to the searches or solved exactly, after which its solutions are mapped back to the original IDs.
+ * <p>
+ * Any optimal solution of the core, mapped back with {@link #toOriginal(SubsetSolution)}, is optimal for the original
+ * instance unless the greedy solution ({@link #getIncumbent()}) is better. Weights should be non-negative.
+ * <p>
+ * The bounds are sums of doubles and may carry rounding errors, so an item is only fixed if its flipped bound does not
+ * exceed the greedy profit by more than a relative tolerance in the direction that keeps it in the core, and integer
+ * bounds are rounded down only after adding that tolerance.
+ */
+public class KnapsackReduction {
+
+    // relative tolerance on the bounds
+    private static final double EPSILON = 1e-9;
+
+    private final KnapsackData data;
+    private final double capacity;
+    // fixed items (original IDs)
+    private final int[] fixedIn;
+    private final int numFixedOut;
+    private final double fixedWeight, fixedProfit;
+    // core items (original IDs, in order of decreasing efficiency) and core instance
+    private final int[] coreIDs;
+    private final KnapsackData coreData;
+    private final double coreCapacity;
+    // break item (original ID), -1 if all candidate items fit
+    private final int breakItem;
+    // bounds on the optimal profit of the original instance
+    private final double lowerBound, upperBound;
+    private final SubsetSolution incumbent;
+
+    /**
+     * Reduces the given instance.
+     *
+     * @param data knapsack data
+     * @param capacity knapsack capacity
+     */
+    public KnapsackReduction(KnapsackData data, double capacity){
+        if(capacity < 0){
+            throw new IllegalArgumentException("Capacity should be non-negative: " + capacity);
+        }
+        this.data = data;
+        this.capacity = capacity;
+        int[] sorted = data.getEfficiencyOrder();
+        int n = sorted.length;
+        // split off trivially fixed items, keep candidates in efficiency order
+        int[] in = new int[n];
+        int[] cand = new int[n];
+        int numIn = 0, numCand = 0, numOut = 0;
+        double inProfit = 0.0;
+        boolean integerProfits = true;
+        for(int id : sorted){
+            double w = data.getWeight(id);
+            double p = data.getProfit(id);
+            if(w < 0){
+                throw new IllegalArgumentException("Negative weight of item " + id + ": " + w);
+            }
+            if(p <= 0 || w > capacity){
+                numOut++;
+            } else if(w == 0){
+                in[numIn++] = id;
+                inProfit += p;
+            } else {
+                cand[numCand++] = id;
+                integerProfits &= p == Math.rint(p);
+            }
+        }
+        double[] w = new double[numCand];
+        double[] p = new double[numCand];
+        double[] sumW = new double[numCand + 1];
+        double[] sumP = new double[numCand + 1];
+        for(int i = 0; i < numCand; i++){
+            w[i] = data.getWeight(cand[i]);
+            p[i] = data.getProfit(cand[i]);
+            sumW[i + 1] = sumW[i] + w[i];
+            sumP[i + 1] = sumP[i] + p[i];
+        }
+        // break item position b: items 0..b-1 fit, item b does not
+        int b = findBreak(sumW, -1, 0.0, capacity);
+        breakItem = b < numCand ? cand[b] : -1;
+        // greedy solution: all items before the break item, then every later item that still fits
+        incumbent = new SubsetSolution(data.getIDs());
+        double residual = capacity;
+        double greedyProfit = inProfit;
+        for(int id = 0; id < numIn; id++){
+            incumbent.select(in[id]);
+        }
+        for(int i = 0; i < numCand; i++){
+            if(w[i] <= residual){
+                incumbent.select(cand[i]);
+                residual -= w[i];
+                greedyProfit += p[i];
+            }
+        }
+        lowerBound = greedyProfit;
+        double lb = greedyProfit - inProfit;
+        double ub = dantzig(w, p, sumW, sumP, -1, capacity);
+        upperBound = inProfit + (integerProfits ? Math.floor(ub + tolerance(ub)) : ub);
+        // reduction tests
+        boolean[] isCore = new boolean[numCand];
+        int numCore = 0;
+        double coreCap = capacity;
+        double inWeight = 0.0;
+        for(int i = 0; i < numCand; i++){
+            // bound with item i flipped w.r.t. the LP solution
+            double flipped = i < b
+                    ? dantzig(w, p, sumW, sumP, i, capacity)
+                    : p[i] + dantzig(w, p, sumW, sumP, i, capacity - w[i]);
+            // integer bounds are exact after rounding, others are only fixed if clearly not better
+            if(integerProfits){
+                flipped = Math.floor(flipped + tolerance(flipped));
+            } else {
+                flipped += tolerance(flipped);
+            }
+            if(flipped <= lb){
+                if(i < b){
+                    in[numIn++] = cand[i];
+                    inProfit += p[i];
+                    inWeight += w[i];
+                    coreCap -= w[i];
+                } else {
+                    numOut++;
+                }
+            } else {
+                isCore[i] = true;
+                numCore++;
+            }
+        }
+        fixedIn = Arrays.copyOf(in, numIn);
+        numFixedOut = numOut;
+        fixedWeight = inWeight;
+        fixedProfit = inProfit;
+        coreCapacity = Math.max(0.0, coreCap);
+        coreIDs = new int[numCore];
+        double[] coreWeights = new double[numCore];
+        double[] coreProfits = new double[numCore];
+        int k = 0;
+        for(int i = 0; i < numCand; i++){
+            if(isCore[i]){
+                coreIDs[k] = cand[i];
+                coreWeights[k] = w[i];
+                coreProfits[k] = p[i];
+                k++;
+            }
+        }
+        coreData = new KnapsackData(coreWeights, coreProfits);
+    }
+
+    /**
+     * Finds the break position for the given capacity when skipping the item at the given position (-1 for none):
+     * the largest k such that the items at positions 0..k-1, except the skipped item, fit. Never returns the skipped
+     * position itself.
+     */
+    private static int findBreak(double[] sumW, int skip, double skipWeight, double capacity){
+        int lo = 0, hi = sumW.length - 1;
+        while(lo < hi){
+            int mid = (lo + hi + 1) >>> 1;
+            double weight = mid > skip ? sumW[mid] - skipWeight : sumW[mid];
+            if(weight <= capacity){
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return the rounding tolerance for the given bound (none for infinite bounds)
+     */
+    private static double tolerance(double bound){
+        return Double.isInfinite(bound) ? 0.0 : EPSILON * Math.max(1.0, Math.abs(bound));
+    }
+
+    /**
+     * Computes the Dantzig bound for the given capacity, over all candidate items except the one at the given
+     * position (-1 for none).
+     */
+    private static double dantzig(double[] w, double[] p, double[] sumW, double[] sumP, int skip, double capacity){
+        if(capacity < 0){
+            return Double.NEGATIVE_INFINITY;
+        }
+        double skipWeight = skip >= 0 ? w[skip] : 0.0;
+        double skipProfit = skip >= 0 ? p[skip] : 0.0;
+        int k = findBreak(sumW, skip, skipWeight, capacity);
+        double weight = k > skip ? sumW[k] - skipWeight : sumW[k];
+        double bound = k > skip ? sumP[k] - skipProfit : sumP[k];
+        if(k < w.length){
+            bound += (capacity - weight) * p[k] / w[k];
+        }
+        return bound;
+    }
+
+    public KnapsackData getData() {
+        return data;
+    }
+
+    public double getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the core instance; item i of the core corresponds to item {@code getCoreIDs()[i]} of the original
+     *         instance. The core may be empty, in which case the better of {@link #getFixedSolution()} and
+     *         {@link #getIncumbent()} is optimal.
+     */
+    public KnapsackData getCoreData() {
+        return coreData;
+    }
+
+    /**
+     * @return the capacity left for the core items after selecting the items that are fixed in
+     */
+    public double getCoreCapacity() {
+        return coreCapacity;
+    }
+
+    /**
+     * @return the original IDs of the core items, in order of decreasing efficiency
+     */
+    public int[] getCoreIDs() {
+        return coreIDs.clone();
+    }
+
+    public int getCoreSize() {
+        return coreIDs.length;
+    }
+
+    public int getNumFixedIn() {
+        return fixedIn.length;
+    }
+
+    public int getNumFixedOut() {
+        return numFixedOut;
+    }
+
+    public double getFixedWeight() {
+        return fixedWeight;
+    }
+
+    public double getFixedProfit() {
+        return fixedProfit;
+    }
+
+    /**
+     * @return the original ID of the break item, or -1 if all items with profit fit in the knapsack
+     */
+    public int getBreakItem() {
+        return breakItem;
+    }
+
+    /**
+     * @return the profit of the greedy solution, a lower bound on the optimum
+     */
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * @return the Dantzig upper bound on the optimum
+     */
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * @return a copy of the greedy solution used for the reduction tests
+     */
+    public SubsetSolution getIncumbent() {
+        return incumbent.copy();
+    }
+
+    /**
+     * Maps a solution of the core instance back to the original instance, adding the items that are fixed in.
+     *
+     * @param coreSolution solution of {@link #getCoreData()}
+     * @return the corresponding solution of the original instance
+     */
+    public SubsetSolution toOriginal(SubsetSolution coreSolution){
+        SubsetSolution solution = getFixedSolution();
+        for(int coreID : coreSolution.getSelectedIDs()){
+            solution.select(coreIDs[coreID]);
+        }
+        return solution;
+    }
+
+    /**
+     * Maps a solution of the core instance back to the original instance (see {@link #toOriginal(SubsetSolution)}),
+     * or returns the greedy solution if that is better or no core solution is given.
+     *
+     * @param coreSolution solution of {@link #getCoreData()}, may be {@code null}
+     * @return the better of the mapped core solution and the greedy solution
+     */
+    public SubsetSolution toBestOriginal(SubsetSolution coreSolution){
+        SubsetSolution solution = coreSolution != null ? toOriginal(coreSolution) : getFixedSolution();
+        return computeProfit(solution) >= lowerBound ? solution : getIncumbent();
+    }
+
+    /**
+     * @return the solution of the original instance that selects exactly the items that are fixed in
+     */
+    public SubsetSolution getFixedSolution(){
+        SubsetSolution solution = new SubsetSolution(data.getIDs());
+        for(int id : fixedIn){
+            solution.select(id);
+        }
+        return solution;
+    }
+
+    /**
+     * Solves the core exactly, with dynamic programming if all core weights are integer and the table is not too
+     * large (see {@link DynamicProgrammingKnapsackGenerator}), and with {@link BranchAndBoundKnapsack} otherwise.
+     *
+     * @return an optimal solution of the original instance
+     */
+    public SubsetSolution solveExactly(){
+        return toBestOriginal(coreIDs.length > 0 ? solveCore() : null);
+    }
+
+    private SubsetSolution solveCore(){
+        SubsetSolution coreSolution;
+        int[] ids = new int[coreIDs.length];
+        for(int i = 0; i < ids.length; i++){
+            ids[i] = i;
+        }
+        if(DynamicProgrammingKnapsackGenerator.isApplicable(coreData, ids, coreCapacity,
+                                                            DynamicProgrammingKnapsackGenerator.DEFAULT_MAX_CELLS)){
+            coreSolution = new SubsetSolution(coreData.getIDs());
+            for(int id : DynamicProgrammingKnapsackGenerator.solve(coreData, ids, (int) Math.floor(coreCapacity))){
+                coreSolution.select(id);
+            }
+        } else {
+            coreSolution = new BranchAndBoundKnapsack(coreCapacity).solve(coreData).getSolution();
+        }
+        return coreSolution;
+    }
+
+    /**
+     * @param solution solution of the original instance
+     * @return its total profit
+     */
+    public double computeProfit(SubsetSolution solution){
+        double profit = 0.0;
+        for(int id : solution.getSelectedIDs()){
+            profit += data.getProfit(id);
+        }
+        return profit;
+    }
+
+    /**
+     * @param solution solution of the original instance
+     * @return its total weight
+     */
+    public double computeWeight(SubsetSolution solution){
+        double weight = 0.0;
+        for(int id : solution.getSelectedIDs()){
+            weight += data.getWeight(id);
+        }
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("core of %d/%d items (fixed in: %d, fixed out: %d), core capacity %s, bounds [%s, %s]",
+                             coreIDs.length, data.getIDs().size(), fixedIn.length, numFixedOut, coreCapacity,
+                             lowerBound, upperBound);
+    }
+
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jamesframework.examples.knapsack;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jamesframework.core.search.LocalSearch;
+import org.jamesframework.core.search.algo.RandomDescent;
+import org.jamesframework.core.search.stopcriteria.MaxRuntime;
+import org.jamesframework.core.search.stopcriteria.MaxStepsWithoutImprovement;
+import org.jamesframework.core.search.stopcriteria.MaxTimeWithoutImprovement;
+import org.jamesframework.core.subset.SubsetProblem;
+import org.jamesframework.core.subset.SubsetSolution;
+import org.jamesframework.core.subset.neigh.SinglePerturbationNeighbourhood;
+import org.jamesframework.examples.util.AdaptiveTemperatureLadder;
+import org.jamesframework.examples.util.BatchRunner;
+import org.jamesframework.examples.util.SolverResult;
+import org.jamesframework.examples.util.TargetValue;
+import org.jamesframework.examples.util.TemperingReplica;
+
+/**
+ * Programmatic interface to the knapsack searches of {@link Knapsack}: solves an instance without printing anything
+ * and returns the best solution with its profit, the runtime and the number of steps. A solver can be reused for
+ * many instances, also concurrently.
+ */
+public class KnapsackSolver {
+
+    /**
+     * Available search algorithms.
+     */
+    public enum Algorithm {
+        /** Random descent with a single perturbation neighbourhood. */
+        RANDOM_DESCENT,
+        /** Parallel tempering with a single perturbation neighbourhood, as in {@link Knapsack}. */
+        PARALLEL_TEMPERING,
+        /** Exact branch-and-bound (see {@link BranchAndBoundKnapsack}), e.g. to compute optimal reference values. */
+        BRANCH_AND_BOUND
+    }
+
+    public static final int DEFAULT_NUM_REPLICAS = Knapsack.NUM_REPLICAS;
+    public static final boolean DEFAULT_AUTO_TUNE = Knapsack.AUTO_TUNE;
+    // stop criteria are checked this often, so that a search stops soon after reaching the target profit
+    static final long STOP_CRITERION_CHECK_PERIOD_MILLIS = 10;
+
+    private final double capacity;
+    private final int timeLimit;
+    private Algorithm algorithm = Algorithm.PARALLEL_TEMPERING;
+    private Knapsack.Initializer initializer = Knapsack.Initializer.RANDOMIZED_GREEDY;
+    private int numReplicas = DEFAULT_NUM_REPLICAS;
+    private boolean reduce = true;
+    private boolean autoTune = DEFAULT_AUTO_TUNE;
+    // optional stop criteria, not used if NaN or 0
+    private double targetProfit = Double.NaN;
+    private long maxStepsWithoutImprovement = 0;
+    private long maxTimeWithoutImprovement = 0;
+
+    /**
+     * @param capacity knapsack capacity
+     * @param timeLimit runtime limit per instance (in seconds)
+     */
+    public KnapsackSolver(double capacity, int timeLimit) {
+        if(timeLimit <= 0){
+            throw new IllegalArgumentException("Time limit should be strictly positive: " + timeLimit);
+        }
+        this.capacity = capacity;
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * Solves a directory of knapsack instances with the same capacity in a single JVM. Expects at least three
+     * parameters: (1) the directory, (2) the capacity of the knapsack and (3) the runtime limit per instance (in
+     * seconds), optionally followed by (4) the number of instances solved concurrently (default: number of cores
+     * divided by the number of threads of a single solve, at least 1), (5) the output format, {@code csv} (default) or
+     * {@code json}, and (6) the algorithm (default: {@code PARALLEL_TEMPERING}). Results are written to standard
+     * output.
+     *
+     * @param args array containing the directory, capacity, runtime limit, number of threads, output format and
+     *             algorithm
+     */
+    public static void main(String[] args) {
+        if(args.length < 3 || args.length > 6){
+            System.err.println("Usage: java -cp james-examples.jar org.jamesframework.examples.knapsack.KnapsackSolver "
+                                + "<directory> <capacity> <runtime> [<threads>] [csv|json] [<algorithm>]");
+            System.exit(1);
+        }
+        KnapsackSolver solver = new KnapsackSolver(Double.parseDouble(args[1]), Integer.parseInt(args[2]));
+        if(args.length > 5){
+            solver.setAlgorithm(Algorithm.valueOf(args[5].toUpperCase()));
+        }
+        int numThreads = args.length > 3
+                            ? Integer.parseInt(args[3])
+                            : Math.max(1, Runtime.getRuntime().availableProcessors() / solver.getThreadsPerSolve());
+        BatchRunner.Format format = args.length > 4
+                                        ? BatchRunner.Format.valueOf(args[4].toUpperCase())
+                                        : BatchRunner.Format.CSV;
+        try {
+            new BatchRunner(numThreads, format).run(Paths.get(args[0]), solver::solve, System.out);
+        } catch (IOException ex) {
+            System.err.println("Failed to read directory: " + args[0] + " (" + ex.getMessage() + ")");
+            System.exit(2);
+        }
+    }
+
+    public void setAlgorithm(Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setInitializer(Knapsack.Initializer initializer) {
+        this.initializer = initializer;
+    }
+
+    public Knapsack.Initializer getInitializer() {
+        return initializer;
+    }
+
+    /**
+     * @param numReplicas number of parallel tempering replicas
+     */
+    public void setNumReplicas(int numReplicas) {
+        if(numReplicas <= 0){
+            throw new IllegalArgumentException("Number of replicas should be strictly positive: " + numReplicas);
+        }
+        this.numReplicas = numReplicas;
+    }
+
+    public int getNumReplicas() {
+        return numReplicas;
+    }
+
+    /**
+     * @return number of threads used by a single solve with the configured algorithm: one per replica for
+     *         {@link Algorithm#PARALLEL_TEMPERING}, one otherwise
+     */
+    public int getThreadsPerSolve() {
+        return algorithm == Algorithm.PARALLEL_TEMPERING ? numReplicas : 1;
+    }
+
+    /**
+     * @param autoTune whether parallel tempering calibrates its temperature range from sampled moves and adapts the
+     *                 ladder during the search (see {@link AdaptiveTemperatureLadder}); the number of replicas is
+     *                 still given by {@link #setNumReplicas(int)}, as several instances may be solved concurrently;
+     *                 enabled by default, as in {@link Knapsack}
+     */
+    public void setAutoTune(boolean autoTune) {
+        this.autoTune = autoTune;
+    }
+
+    public boolean isAutoTune() {
+        return autoTune;
+    }
+
+    /**
+     * @param reduce whether the searches run on the core of the instance only (see {@link KnapsackReduction}); does
+     *               not apply to {@link Algorithm#BRANCH_AND_BOUND}
+     */
+    public void setReduce(boolean reduce) {
+        this.reduce = reduce;
+    }
+
+    public boolean isReduce() {
+        return reduce;
+    }
+
+    /**
+     * @param targetProfit profit at which a search stops, e.g. the known optimum of the instances; NaN for none
+     */
+    public void setTargetProfit(double targetProfit) {
+        this.targetProfit = targetProfit;
+    }
+
+    public double getTargetProfit() {
+        return targetProfit;
+    }
+
+    /**
+     * @param maxStepsWithoutImprovement number of steps without improvement of the best solution after which a
+     *                                   search stops; 0 for no limit
+     */
+    public void setMaxStepsWithoutImprovement(long maxStepsWithoutImprovement) {
+        if(maxStepsWithoutImprovement < 0){
+            throw new IllegalArgumentException("Maximum steps without improvement should be non-negative: "
+                                                + maxStepsWithoutImprovement);
+        }
+        this.maxStepsWithoutImprovement = maxStepsWithoutImprovement;
+    }
+
+    public long getMaxStepsWithoutImprovement() {
+        return maxStepsWithoutImprovement;
+    }
+
+    /**
+     * @param maxTimeWithoutImprovement time without improvement of the best solution after which a search stops;
+     *                                  0 for no limit
+     * @param unit time unit
+     */
+    public void setMaxTimeWithoutImprovement(long maxTimeWithoutImprovement, TimeUnit unit) {
+        if(maxTimeWithoutImprovement < 0){
+            throw new IllegalArgumentException("Maximum time without improvement should be non-negative: "
+                                                + maxTimeWithoutImprovement);
+        }
+        this.maxTimeWithoutImprovement = unit.toMillis(maxTimeWithoutImprovement);
+    }
+
+    /**
+     * @return maximum time without improvement (in milliseconds), 0 if there is no limit
+     */
+    public long getMaxTimeWithoutImprovement() {
+        return maxTimeWithoutImprovement;
+    }
+
+    /**
+     * Reads and solves the given instance file (see {@link Knapsack#readInstance(String)}).
+     *
+     * @param instance path of the instance file
+     * @return the result, named after the file
+     * @throws IOException if the file can not be read
+     */
+    public SolverResult<SubsetSolution> solve(Path instance) throws IOException {
+        return solve(instance.getFileName().toString(), Knapsack.readInstance(instance.toString()));
+    }
+
+    /**
+     * Solves the given instance. The score of the result is the total profit of the best solution, or NaN if
+     * no valid solution was found. The runtime is the wall time of the whole call, including the reduction and the
+     * setup of the search. For {@link Algorithm#BRANCH_AND_BOUND} the number of steps is the number of visited
+     * nodes, and the solution is optimal unless the time limit was reached.
+     *
+     * @param name name of the instance, copied into the result
+     * @param data knapsack data
+     * @return the result
+     */
+    public SolverResult<SubsetSolution> solve(String name, KnapsackData data) {
+        long start = System.currentTimeMillis();
+        if(algorithm == Algorithm.BRANCH_AND_BOUND){
+            BranchAndBoundKnapsack branchAndBound = new BranchAndBoundKnapsack(capacity);
+            branchAndBound.setTimeLimit(timeLimit, TimeUnit.SECONDS);
+            BranchAndBoundKnapsack.Result result = branchAndBound.solve(data);
+            return new SolverResult<>(name, result.getSolution(), result.getProfit(),
+                                      System.currentTimeMillis() - start, result.getNodes());
+        }
+        // with reduction, search the core only; profits found in the core exclude the fixed items
+        KnapsackReduction reduction = reduce ? new KnapsackReduction(data, capacity) : null;
+        if(reduction != null && reduction.getCoreSize() == 0){
+            SubsetSolution best = reduction.toBestOriginal(null);
+            return new SolverResult<>(name, best, reduction.computeProfit(best),
+                                      System.currentTimeMillis() - start, 0);
+        }
+        KnapsackData searchData = reduction != null ? reduction.getCoreData() : data;
+        double searchCapacity = reduction != null ? reduction.getCoreCapacity() : capacity;
+        double fixedProfit = reduction != null ? reduction.getFixedProfit() : 0.0;
+        SubsetProblem<KnapsackData> problem = Knapsack.createProblem(searchData, searchCapacity, initializer);
+        LocalSearch<SubsetSolution> search;
+        if(algorithm == Algorithm.RANDOM_DESCENT){
+            search = new RandomDescent<>(problem, new SinglePerturbationNeighbourhood());
+        } else {
+            List<TemperingReplica<SubsetSolution>> replicas = new ArrayList<>(numReplicas);
+            search = Knapsack.createParallelTempering(problem, numReplicas, autoTune, replicas);
+            if(autoTune){
+                search.addSearchListener(new AdaptiveTemperatureLadder(replicas));
+            }
+        }
+        search.addStopCriterion(new MaxRuntime(timeLimit, TimeUnit.SECONDS));
+        if(!Double.isNaN(targetProfit)){
+            search.addStopCriterion(new TargetValue(targetProfit - fixedProfit));
+        }
+        if(maxStepsWithoutImprovement > 0){
+            search.addStopCriterion(new MaxStepsWithoutImprovement(maxStepsWithoutImprovement));
+        }
+        if(maxTimeWithoutImprovement > 0){
+            search.addStopCriterion(new MaxTimeWithoutImprovement(maxTimeWithoutImprovement, TimeUnit.MILLISECONDS));
+        }
+        search.setStopCriterionCheckPeriod(STOP_CRITERION_CHECK_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        try {
+            search.start();
+            SubsetSolution best = search.getBestSolution();
+            double profit;
+            if(reduction != null){
+                best = reduction.toBestOriginal(best);
+                profit = reduction.computeProfit(best);
+            } else {
+                profit = best != null ? search.getBestSolutionEvaluation().getValue() : Double.NaN;
+            }
+            return new SolverResult<>(name, best, profit, System.currentTimeMillis() - start, search.getSteps());
+        } finally {
+            search.dispose();
+        }
+    }
+
+}
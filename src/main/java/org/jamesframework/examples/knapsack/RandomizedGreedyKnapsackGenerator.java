@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jamesframework.examples.knapsack;
+
+import java.util.Random;
+import org.jamesframework.core.problems.sol.RandomSolutionGenerator;
+import org.jamesframework.core.subset.SubsetSolution;
+
+/**
+ * GRASP-style randomized greedy generator. Items are taken from the efficiency-sorted order, but at each step the
+ * next item is chosen at random among the first few remaining candidates (the restricted candidate list), so that
+ * every call yields a different good solution. The list size is a fraction alpha of the number of items (at least
+ * one); alpha = 0 reduces to the plain greedy generator.
+ */
+public class RandomizedGreedyKnapsackGenerator implements RandomSolutionGenerator<SubsetSolution, KnapsackData> {
+
+    private final double capacity;
+    private final double alpha;
+
+    public RandomizedGreedyKnapsackGenerator(double capacity){
+        this(capacity, 0.05);
+    }
+
+    public RandomizedGreedyKnapsackGenerator(double capacity, double alpha){
+        if(alpha < 0.0 || alpha > 1.0){
+            throw new IllegalArgumentException("Alpha should be in [0,1], got " + alpha);
+        }
+        this.capacity = capacity;
+        this.alpha = alpha;
+    }
+
+    @Override
+    public SubsetSolution create(Random rnd, KnapsackData data) {
+        int[] order = data.getEfficiencyOrder();
+        int n = order.length;
+        int rclSize = Math.max(1, (int) Math.ceil(alpha * n));
+        // remaining candidates are candidates[start..n-1], roughly in efficiency order
+        int[] candidates = order.clone();
+        int start = 0;
+        double weight = 0.0;
+        SubsetSolution sol = new SubsetSolution(data.getIDs());
+        while(start < n){
+            // pick a random candidate among the first rclSize remaining ones
+            int end = Math.min(n, start + rclSize);
+            int pick = start + rnd.nextInt(end - start);
+            int id = candidates[pick];
+            // move the first remaining candidate into the freed slot
+            candidates[pick] = candidates[start];
+            start++;
+            double w = data.getWeight(id);
+            if(weight + w <= capacity){
+                sol.select(id);
+                weight += w;
+            }
+        }
+        return sol;
+    }
+
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jamesframework.examples.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.jamesframework.core.problems.Problem;
+import org.jamesframework.core.problems.constraints.validations.Validation;
+import org.jamesframework.core.problems.objectives.evaluations.Evaluation;
+import org.jamesframework.core.problems.sol.Solution;
+import org.jamesframework.core.search.Search;
+import org.jamesframework.core.search.listeners.SearchListener;
+import org.jamesframework.core.search.neigh.Move;
+import org.jamesframework.core.search.neigh.Neighbourhood;
+
+/**
+ * Tunes the temperature ladder of a parallel tempering search while it runs. Attach it as a listener to the parallel
+ * tempering search, with the replicas in order of increasing temperature (the order in which the search creates
+ * them, see {@link TemperingReplica}).
+ * <p>
+ * The temperatures are first spread geometrically between the lowest and highest temperature. Every
+ * {@link #getAdjustInterval()} steps, the swap acceptance rate of each pair of adjacent replicas over the last
+ * interval is compared to the target rate: the ratio between both temperatures is increased if swaps are accepted
+ * more often than targeted, and decreased otherwise. The lowest temperature stays fixed, and the highest temperature
+ * never exceeds its initial value.
+ * <p>
+ * Suitable initial temperatures can be obtained with {@link #calibrate(Problem, Neighbourhood, int, Random)}.
+ */
+public class AdaptiveTemperatureLadder implements SearchListener<Solution> {
+
+    public static final double DEFAULT_TARGET_SWAP_RATE = 0.25;
+    public static final int DEFAULT_ADJUST_INTERVAL = 50;
+    public static final int DEFAULT_NUM_CALIBRATION_SAMPLES = 1000;
+
+    private final List<? extends TemperingReplica<?>> replicas;
+    private final double maxTemperature;
+    private double targetSwapRate = DEFAULT_TARGET_SWAP_RATE;
+    private int adjustInterval = DEFAULT_ADJUST_INTERVAL;
+    // log ratios between the temperatures of adjacent replicas
+    private final double[] logGaps;
+    // swap counts of the replicas after the last step
+    private final long[] lastSwaps;
+    // swap attempts and accepted swaps per pair (i, i+1), in total and since the last adjustment
+    private final long[] attempts, accepted, windowAttempts, windowAccepted;
+    // number of steps of the parallel tempering search seen so far, over all runs
+    private long steps = 0;
+    private long numAdjustments = 0;
+
+    /**
+     * @param replicas the replicas of a parallel tempering search, in order of increasing temperature
+     */
+    public AdaptiveTemperatureLadder(List<? extends TemperingReplica<?>> replicas) {
+        if(replicas.size() < 2){
+            throw new IllegalArgumentException("Need at least two replicas, got " + replicas.size());
+        }
+        this.replicas = replicas;
+        int n = replicas.size();
+        double minTemperature = replicas.get(0).getTemperature();
+        maxTemperature = replicas.get(n - 1).getTemperature();
+        if(minTemperature <= 0 || maxTemperature <= minTemperature){
+            throw new IllegalArgumentException("Invalid temperature range: " + minTemperature + " - " + maxTemperature);
+        }
+        logGaps = new double[n - 1];
+        Arrays.fill(logGaps, Math.log(maxTemperature / minTemperature) / (n - 1));
+        lastSwaps = new long[n];
+        attempts = new long[n - 1];
+        accepted = new long[n - 1];
+        windowAttempts = new long[n - 1];
+        windowAccepted = new long[n - 1];
+        applyTemperatures();
+    }
+
+    /**
+     * Samples random moves along a random walk through valid solutions, starting from a random solution, to
+     * calibrate the temperature range. The highest temperature is chosen so that the median worsening move is
+     * accepted with probability 1/2, and the lowest temperature so that a small worsening move (10th percentile) is
+     * accepted with probability 1/100.
+     *
+     * @param problem the problem
+     * @param neighbourhood the neighbourhood used by the replicas
+     * @param numSamples number of sampled moves
+     * @param rnd source of randomness
+     * @param <SolutionType> solution type
+     * @return the lowest and highest temperature
+     */
+    public static <SolutionType extends Solution> double[] calibrate(Problem<SolutionType> problem,
+                                                                     Neighbourhood<? super SolutionType> neighbourhood,
+                                                                     int numSamples, Random rnd) {
+        SolutionType solution = problem.createRandomSolution(rnd);
+        Evaluation evaluation = problem.evaluate(solution);
+        Validation validation = problem.validate(solution);
+        List<Double> worsening = new ArrayList<>();
+        for(int s = 0; s < numSamples; s++){
+            Move<? super SolutionType> move = neighbourhood.getRandomMove(solution, rnd);
+            if(move == null){
+                break;
+            }
+            Validation moveValidation = problem.validate(move, solution, validation);
+            if(!moveValidation.passed()){
+                continue;
+            }
+            Evaluation moveEvaluation = problem.evaluate(move, solution, evaluation);
+            double delta = moveEvaluation.getValue() - evaluation.getValue();
+            if(problem.isMinimizing()){
+                delta = -delta;
+            }
+            if(delta < 0){
+                worsening.add(-delta);
+            }
+            move.apply(solution);
+            evaluation = moveEvaluation;
+            validation = moveValidation;
+        }
+        if(worsening.isEmpty()){
+            // no worsening moves: temperatures do not matter
+            return new double[]{0.001, 1.0};
+        }
+        worsening.sort(null);
+        double small = worsening.get(worsening.size() / 10);
+        double median = worsening.get(worsening.size() / 2);
+        double maxTemperature = median / Math.log(2);
+        double minTemperature = Math.min(small / Math.log(100), maxTemperature / 10);
+        return new double[]{minTemperature, maxTemperature};
+    }
+
+    /**
+     * @param minReplicas minimum number of replicas
+     * @return one replica per available processor, and at least the given minimum
+     */
+    public static int getDefaultNumReplicas(int minReplicas) {
+        return Math.max(minReplicas, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param targetSwapRate targeted fraction of accepted swaps between adjacent replicas, in (0, 1)
+     */
+    public void setTargetSwapRate(double targetSwapRate) {
+        if(targetSwapRate <= 0.0 || targetSwapRate >= 1.0){
+            throw new IllegalArgumentException("Target swap rate should be in (0, 1): " + targetSwapRate);
+        }
+        this.targetSwapRate = targetSwapRate;
+    }
+
+    public double getTargetSwapRate() {
+        return targetSwapRate;
+    }
+
+    /**
+     * @param adjustInterval number of parallel tempering steps between two adjustments of the ladder
+     */
+    public void setAdjustInterval(int adjustInterval) {
+        if(adjustInterval <= 0){
+            throw new IllegalArgumentException("Adjust interval should be strictly positive: " + adjustInterval);
+        }
+        this.adjustInterval = adjustInterval;
+    }
+
+    public int getAdjustInterval() {
+        return adjustInterval;
+    }
+
+    @Override
+    public void searchStarted(Search search) {
+        // ignore swap counts changed outside of search steps
+        for(int i = 0; i < replicas.size(); i++){
+            lastSwaps[i] = replicas.get(i).getNumSwaps();
+        }
+    }
+
+    @Override
+    public void stepCompleted(Search search, long numSteps) {
+        // parallel tempering attempts to swap pairs (0,1), (2,3), ... and (1,2), (3,4), ... in alternating steps,
+        // starting with the former; a replica can only have swapped with its right neighbour in this step
+        int base = (int) (steps++ & 1);
+        for(int i = base; i + 1 < replicas.size(); i += 2){
+            attempts[i]++;
+            windowAttempts[i]++;
+            if(replicas.get(i).getNumSwaps() > lastSwaps[i]){
+                accepted[i]++;
+                windowAccepted[i]++;
+            }
+        }
+        for(int i = 0; i < replicas.size(); i++){
+            lastSwaps[i] = replicas.get(i).getNumSwaps();
+        }
+        if(steps % adjustInterval == 0){
+            adjust();
+        }
+    }
+
+    private void adjust() {
+        double sum = 0.0;
+        for(int i = 0; i < logGaps.length; i++){
+            if(windowAttempts[i] > 0){
+                double rate = (double) windowAccepted[i] / windowAttempts[i];
+                logGaps[i] *= Math.exp(rate - targetSwapRate);
+            }
+            sum += logGaps[i];
+            windowAttempts[i] = 0;
+            windowAccepted[i] = 0;
+        }
+        // do not exceed the initial highest temperature
+        double maxSum = Math.log(maxTemperature / replicas.get(0).getTemperature());
+        if(sum > maxSum){
+            for(int i = 0; i < logGaps.length; i++){
+                logGaps[i] *= maxSum / sum;
+            }
+        }
+        applyTemperatures();
+        numAdjustments++;
+    }
+
+    private void applyTemperatures() {
+        double temperature = replicas.get(0).getTemperature();
+        for(int i = 1; i < replicas.size(); i++){
+            temperature *= Math.exp(logGaps[i - 1]);
+            replicas.get(i).setTemperature(temperature);
+        }
+    }
+
+    /**
+     * @return current temperatures of the replicas
+     */
+    public double[] getTemperatures() {
+        return replicas.stream().mapToDouble(TemperingReplica::getTemperature).toArray();
+    }
+
+    /**
+     * @param i index of the lower replica of the pair (i, i+1)
+     * @return number of swaps attempted between replicas i and i+1
+     */
+    public long getSwapAttempts(int i) {
+        return attempts[i];
+    }
+
+    /**
+     * @param i index of the lower replica of the pair (i, i+1)
+     * @return fraction of the attempted swaps between replicas i and i+1 that was accepted
+     */
+    public double getSwapRate(int i) {
+        return attempts[i] > 0 ? (double) accepted[i] / attempts[i] : 0.0;
+    }
+
+    public long getNumAdjustments() {
+        return numAdjustments;
+    }
+
+    /**
+     * @return one line per replica with its temperature and move acceptance rate, and the swap rate with the next
+     *         replica
+     */
+    public String formatStatistics() {
+        StringBuilder str = new StringBuilder();
+        for(int i = 0; i < replicas.size(); i++){
+            TemperingReplica<?> replica = replicas.get(i);
+            str.append(String.format("Replica %d: temperature %.4f, acceptance rate %.3f", i,
+                                     replica.getTemperature(), replica.getAcceptanceRate()));
+            if(i + 1 < replicas.size()){
+                str.append(String.format(", swap rate with %d: %.3f (%d attempts)", i + 1, getSwapRate(i),
+                                         attempts[i]));
+            }
+            str.append(System.lineSeparator());
+        }
+        str.append("Ladder adjustments: ").append(numAdjustments);
+        return str.toString();
+    }
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jamesframework.examples.util;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous sink for progress output, so that searches do not write to a (synchronized, slow) print stream from
+ * their hot loop. Output is written by a background daemon thread and comes in two kinds:
+ * <ul>
+ * <li>log lines ({@link #log(String)}), passed through a bounded queue; when the queue is full, lines are dropped
+ * instead of blocking the caller;</li>
+ * <li>updates ({@link #update(Object, String, Object)}), which are coalesced per key: only the latest value of a
+ * key is kept, and written at most once per interval. The value is converted to a string by the writer thread, so
+ * it should not be modified afterwards.</li>
+ * </ul>
+ * Producers that have to do work to create an update can first check {@link #wantsUpdate()}. Call
+ * {@link #flush()} to write all pending output before printing to the same stream directly.
+ */
+public class AsyncProgressSink implements AutoCloseable {
+
+    public static final long DEFAULT_INTERVAL_MILLIS = 100;
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private static volatile AsyncProgressSink defaultSink;
+
+    private final PrintStream out;
+    private final long intervalNanos;
+    private final BlockingQueue<String> lines;
+    private final Map<Object, Update> updates = new ConcurrentHashMap<>();
+    private final AtomicLong droppedLines = new AtomicLong();
+    private final AtomicLong coalescedUpdates = new AtomicLong();
+    // guards writing to the output stream
+    private final Object writeLock = new Object();
+    private final Thread writer;
+    private volatile long nextUpdateNanos;
+    private volatile boolean closed = false;
+
+    public AsyncProgressSink(PrintStream out) {
+        this(out, DEFAULT_INTERVAL_MILLIS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param out stream to write to
+     * @param intervalMillis minimum time between two writes of the updates (in milliseconds), at least 1 so that
+     *                       the writer thread waits in between
+     * @param queueCapacity maximum number of log lines waiting to be written
+     */
+    public AsyncProgressSink(PrintStream out, long intervalMillis, int queueCapacity) {
+        if(intervalMillis < 1){
+            throw new IllegalArgumentException("Interval should be at least 1 ms: " + intervalMillis);
+        }
+        this.out = out;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.lines = new ArrayBlockingQueue<>(queueCapacity);
+        nextUpdateNanos = System.nanoTime();
+        writer = new Thread(this::writeLoop, "async-progress-sink");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * @return shared sink writing to standard output, flushed when the JVM shuts down
+     */
+    public static AsyncProgressSink getDefault() {
+        AsyncProgressSink sink = defaultSink;
+        if(sink == null){
+            synchronized(AsyncProgressSink.class){
+                sink = defaultSink;
+                if(sink == null){
+                    sink = new AsyncProgressSink(System.out);
+                    Runtime.getRuntime().addShutdownHook(new Thread(sink::close));
+                    defaultSink = sink;
+                }
+            }
+        }
+        return sink;
+    }
+
+    /**
+     * Queues a line to be written. Never blocks: if the queue is full, the line is dropped.
+     *
+     * @param line line to write
+     */
+    public void log(String line) {
+        if(closed || !lines.offer(line)){
+            droppedLines.incrementAndGet();
+        }
+    }
+
+    /**
+     * Sets the latest value for the given key, replacing any value of this key that has not been written yet.
+     * The line {@code prefix + value} is written with the next batch of updates.
+     *
+     * @param key key of the update, e.g. the object that reports its progress
+     * @param prefix text written before the value
+     * @param value value to report, converted to a string by the writer thread
+     */
+    public void update(Object key, String prefix, Object value) {
+        while(true){
+            Update update = updates.computeIfAbsent(key, k -> new Update());
+            synchronized(update){
+                if(update.removed){
+                    // removed by the writer in the meantime: retry with a new entry
+                    continue;
+                }
+                if(update.pending){
+                    coalescedUpdates.incrementAndGet();
+                }
+                update.prefix = prefix;
+                update.value = value;
+                update.pending = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Cheap check whether an update given now would be written in the next batch rather than being replaced by
+     * a later one, so that producers can skip creating updates in between.
+     *
+     * @return true if the next batch of updates is due
+     */
+    public boolean wantsUpdate() {
+        return System.nanoTime() - nextUpdateNanos >= 0;
+    }
+
+    /**
+     * Writes all queued lines and pending updates, from the calling thread.
+     */
+    public void flush() {
+        synchronized(writeLock){
+            writeLines();
+            writeUpdates();
+            out.flush();
+        }
+    }
+
+    /**
+     * @return number of log lines dropped because the queue was full or the sink was closed
+     */
+    public long getDroppedLines() {
+        return droppedLines.get();
+    }
+
+    /**
+     * @return number of updates that were replaced before being written
+     */
+    public long getCoalescedUpdates() {
+        return coalescedUpdates.get();
+    }
+
+    /**
+     * Writes all pending output and stops the writer thread. Lines logged afterwards are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.NANOSECONDS.toMillis(intervalNanos) + 1000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void writeLoop() {
+        while(!closed){
+            try {
+                long wait = nextUpdateNanos - System.nanoTime();
+                String line = wait > 0 ? lines.poll(wait, TimeUnit.NANOSECONDS) : lines.poll();
+                synchronized(writeLock){
+                    if(line != null){
+                        out.println(line);
+                        writeLines();
+                    }
+                    if(System.nanoTime() - nextUpdateNanos >= 0){
+                        writeUpdates();
+                        nextUpdateNanos = System.nanoTime() + intervalNanos;
+                    }
+                }
+            } catch (InterruptedException ex) {
+                // closed: remaining output is written by close()
+                return;
+            }
+        }
+    }
+
+    private void writeLines() {
+        List<String> batch = new ArrayList<>();
+        lines.drainTo(batch);
+        for(String line : batch){
+            out.println(line);
+        }
+    }
+
+    private void writeUpdates() {
+        for(Map.Entry<Object, Update> entry : updates.entrySet()){
+            Update update = entry.getValue();
+            String prefix;
+            Object value;
+            synchronized(update){
+                if(!update.pending){
+                    // no updates for a whole interval: forget the key
+                    update.removed = true;
+                    updates.remove(entry.getKey(), update);
+                    continue;
+                }
+                prefix = update.prefix;
+                value = update.value;
+                update.pending = false;
+                update.value = null;
+            }
+            out.println(prefix + value);
+        }
+    }
+
+    /**
+     * Latest update for one key.
+     */
+    private static class Update {
+        private String prefix;
+        private Object value;
+        private boolean pending;
+        private boolean removed;
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jamesframework.examples.util;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Solves all instance files in a directory concurrently on a bounded thread pool, within a single JVM, and writes
+ * one line per instance as soon as it has been solved, either as CSV (with a header line) or as JSON lines. An
+ * instance that fails to load or solve yields a line with an error message instead of stopping the batch.
+ * <p>
+ * The number of threads bounds the number of instances solved at the same time; solvers that use several threads
+ * themselves (e.g. parallel tempering) should be combined with a correspondingly smaller pool.
+ */
+public class BatchRunner {
+
+    /**
+     * Output formats.
+     */
+    public enum Format {
+        /** Comma separated values, preceded by a header line. */
+        CSV,
+        /** One JSON object per line. */
+        JSON
+    }
+
+    /**
+     * Solves a single instance file.
+     */
+    @FunctionalInterface
+    public interface InstanceSolver {
+        SolverResult<?> solve(Path instance) throws Exception;
+    }
+
+    private final int numThreads;
+    private final Format format;
+
+    public BatchRunner(int numThreads, Format format) {
+        if(numThreads <= 0){
+            throw new IllegalArgumentException("Number of threads should be strictly positive: " + numThreads);
+        }
+        this.numThreads = numThreads;
+        this.format = format;
+    }
+
+    /**
+     * Solves all regular, non-hidden files in the given directory, in order of their names.
+     *
+     * @param directory directory containing the instance files
+     * @param solver solves one instance
+     * @param out stream to which the result lines are written
+     * @return the results in order of the file names, with {@code null} for failed instances
+     * @throws IOException if the directory can not be read
+     */
+    public List<SolverResult<?>> run(Path directory, InstanceSolver solver, PrintStream out) throws IOException {
+        List<Path> instances;
+        try (Stream<Path> files = Files.list(directory)) {
+            instances = files.filter(Files::isRegularFile)
+                             .filter(f -> !f.getFileName().toString().startsWith("."))
+                             .sorted()
+                             .collect(Collectors.toList());
+        }
+        if(format == Format.CSV){
+            out.println("instance,score,runtime_ms,steps,error");
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(numThreads, Math.max(instances.size(), 1)));
+        try {
+            List<Future<SolverResult<?>>> futures = new ArrayList<>(instances.size());
+            for(Path instance : instances){
+                futures.add(pool.submit(() -> solve(instance, solver, out)));
+            }
+            List<SolverResult<?>> results = new ArrayList<>(instances.size());
+            for(Future<SolverResult<?>> future : futures){
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running batch", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Batch job failed", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private SolverResult<?> solve(Path instance, InstanceSolver solver, PrintStream out) {
+        String name = instance.getFileName().toString();
+        SolverResult<?> result = null;
+        String line;
+        try {
+            result = solver.solve(instance);
+            line = format(name, result, null);
+        } catch (Exception ex) {
+            line = format(name, null, ex.toString());
+        }
+        // println is synchronized, so lines of concurrent jobs are not interleaved
+        out.println(line);
+        return result;
+    }
+
+    private String format(String name, SolverResult<?> result, String error) {
+        if(format == Format.CSV){
+            return csv(name) + ","
+                    + (result != null ? result.getScore() + "," + result.getRuntime() + "," + result.getSteps() : ",,")
+                    + "," + (error != null ? csv(error) : "");
+        }
+        StringBuilder json = new StringBuilder("{\"instance\":").append(json(name));
+        if(result != null){
+            json.append(",\"score\":").append(jsonNumber(result.getScore()))
+                .append(",\"runtime_ms\":").append(result.getRuntime())
+                .append(",\"steps\":").append(result.getSteps());
+        } else {
+            json.append(",\"error\":").append(json(error));
+        }
+        return json.append('}').toString();
+    }
+
+    private static String csv(String value) {
+        if(value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0){
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String json(String value) {
+        StringBuilder s = new StringBuilder("\"");
+        for(int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            if(c == '"' || c == '\\'){
+                s.append('\\').append(c);
+            } else if(c < 0x20){
+                s.append(String.format("\\u%04x", (int) c));
+            } else {
+                s.append(c);
+            }
+        }
+        return s.append('"').toString();
+    }
+
+    private static String jsonNumber(double value) {
+        // JSON has no representation for NaN or infinity
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value);
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jamesframework.examples.util;
+
+import java.util.AbstractSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * Read-only set of the consecutive integers from (inclusive) and to (exclusive). Used as the set of IDs of data
+ * whose items are identified by their index in a number of arrays: no elements are stored, so memory use and
+ * construction time do not depend on the number of items.
+ */
+public class IntRangeSet extends AbstractSet<Integer> {
+
+    private final int from;
+    private final int to;
+
+    /**
+     * Creates the set {0, ..., size-1}.
+     *
+     * @param size number of elements
+     */
+    public IntRangeSet(int size) {
+        this(0, size);
+    }
+
+    /**
+     * Creates the set {from, ..., to-1}.
+     *
+     * @param from smallest element (inclusive)
+     * @param to upper bound (exclusive)
+     */
+    public IntRangeSet(int from, int to) {
+        if (to < from) {
+            throw new IllegalArgumentException("Invalid range: [" + from + ", " + to + ")");
+        }
+        this.from = from;
+        this.to = to;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    public boolean contains(int i) {
+        return i >= from && i < to;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && contains(((Integer) o).intValue());
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return to == from;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < to;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next >= to) {
+                    throw new NoSuchElementException();
+                }
+                return next++;
+            }
+        };
+    }
+
+    /**
+     * Applies the given action to all elements in increasing order, without boxing.
+     *
+     * @param action action to perform for each element
+     */
+    public void forEachInt(IntConsumer action) {
+        for (int i = from; i < to; i++) {
+            action.accept(i);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof IntRangeSet) {
+            IntRangeSet other = (IntRangeSet) o;
+            return (isEmpty() && other.isEmpty()) || (from == other.from && to == other.to);
+        }
+        return o instanceof Set && super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        // sum of the elements, as specified by Set.hashCode()
+        long sum = ((long) from + to - 1) * (to - from) / 2;
+        return (int) sum;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + from + ", " + to + ")";
+    }
+
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jamesframework.examples.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jamesframework.core.problems.objectives.evaluations.Evaluation;
+import org.jamesframework.core.problems.sol.Solution;
+import org.jamesframework.core.search.LocalSearch;
+import org.jamesframework.core.search.Search;
+import org.jamesframework.core.search.stopcriteria.StopCriterion;
+
+/**
+ * Island model: runs several local searches for the same problem concurrently, one thread per island, and lets them
+ * exchange their best solutions through a {@link MigrationChannel}. The islands can be any mix of JAMES local
+ * searches, e.g. random descents and parallel tempering searches.
+ * <p>
+ * Each island runs in epochs: a run of the search is stopped after {@link #getMigrationInterval()} milliseconds or
+ * {@link #getMigrationSteps()} steps, whichever comes first. In between two runs, the island sends its best solution
+ * to the next island if it improved since the last epoch, and continues from the migrant it received if that one is
+ * better than its own best solution. Stopping and restarting a search preserves its state, so an island that receives
+ * no better migrant simply continues where it left off.
+ * <p>
+ * All islands stop together when the maximum runtime has elapsed or when any island reaches the target value. Stop
+ * criteria of the island searches themselves only end their current epoch.
+ *
+ * @param <SolutionType> solution type of the problem solved by the islands
+ */
+public class IslandModel<SolutionType extends Solution> {
+
+    public static final long DEFAULT_MIGRATION_INTERVAL_MILLIS = 100;
+    // how often the islands check whether their epoch has ended
+    private static final long STOP_CRITERION_CHECK_PERIOD_MILLIS = 10;
+
+    private final List<? extends LocalSearch<SolutionType>> islands;
+    private final long maxRuntimeNanos;
+    // +1 if the problem is maximized, -1 if it is minimized: migrant scores are always maximized
+    private final int sign;
+    private double targetValue = Double.NaN;
+    private long migrationIntervalMillis = DEFAULT_MIGRATION_INTERVAL_MILLIS;
+    private long migrationSteps = Long.MAX_VALUE;
+    // state of the last run
+    private MigrationChannel<SolutionType> channel;
+    private final AtomicBoolean stop = new AtomicBoolean();
+    private volatile long deadlineNanos;
+    private final long[] islandSteps;
+    private final long[] islandImmigrants;
+    private SolutionType bestSolution;
+    private Evaluation bestEvaluation;
+    private long runtime;
+
+    /**
+     * @param islands the island searches, all solving the same problem; they are not disposed by the island model
+     * @param maxRuntime maximum runtime of the whole model
+     * @param unit time unit of the maximum runtime
+     */
+    public IslandModel(List<? extends LocalSearch<SolutionType>> islands, long maxRuntime, TimeUnit unit) {
+        if(islands.isEmpty()){
+            throw new IllegalArgumentException("Need at least one island.");
+        }
+        if(maxRuntime <= 0){
+            throw new IllegalArgumentException("Maximum runtime should be strictly positive: " + maxRuntime);
+        }
+        this.islands = islands;
+        this.maxRuntimeNanos = unit.toNanos(maxRuntime);
+        this.sign = islands.get(0).getProblem().isMinimizing() ? -1 : 1;
+        islandSteps = new long[islands.size()];
+        islandImmigrants = new long[islands.size()];
+    }
+
+    /**
+     * @param targetValue value at which all islands stop, e.g. a known optimum; NaN for none (default)
+     */
+    public void setTargetValue(double targetValue) {
+        this.targetValue = targetValue;
+    }
+
+    public double getTargetValue() {
+        return targetValue;
+    }
+
+    /**
+     * @param interval maximum duration of an epoch, after which the island migrates
+     * @param unit time unit of the interval
+     */
+    public void setMigrationInterval(long interval, TimeUnit unit) {
+        if(interval <= 0){
+            throw new IllegalArgumentException("Migration interval should be strictly positive: " + interval);
+        }
+        this.migrationIntervalMillis = Math.max(1, unit.toMillis(interval));
+    }
+
+    /**
+     * @return maximum duration of an epoch (in milliseconds)
+     */
+    public long getMigrationInterval() {
+        return migrationIntervalMillis;
+    }
+
+    /**
+     * @param steps maximum number of steps of an epoch, after which the island migrates; unlimited by default
+     */
+    public void setMigrationSteps(long steps) {
+        if(steps <= 0){
+            throw new IllegalArgumentException("Migration steps should be strictly positive: " + steps);
+        }
+        this.migrationSteps = steps;
+    }
+
+    public long getMigrationSteps() {
+        return migrationSteps;
+    }
+
+    public int getNumIslands() {
+        return islands.size();
+    }
+
+    /**
+     * Runs all islands until the maximum runtime has elapsed or the target value has been reached.
+     *
+     * @return the best solution found by any island, or <code>null</code> if none was found
+     */
+    public SolutionType run() {
+        long start = System.nanoTime();
+        deadlineNanos = start + maxRuntimeNanos;
+        channel = new MigrationChannel<>(islands.size());
+        ExecutorService pool = Executors.newFixedThreadPool(islands.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(int i = 0; i < islands.size(); i++){
+                final int island = i;
+                futures.add(pool.submit(() -> runIsland(island)));
+            }
+            for(Future<?> future : futures){
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            stop.set(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the islands", ex);
+        } catch (ExecutionException ex) {
+            stop.set(true);
+            throw new IllegalStateException("Island failed", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+            stop.set(false);
+            runtime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+        bestSolution = null;
+        bestEvaluation = null;
+        for(LocalSearch<SolutionType> search : islands){
+            Evaluation eval = search.getBestSolutionEvaluation();
+            if(eval != null && (bestEvaluation == null || sign * eval.getValue() > sign * bestEvaluation.getValue())){
+                bestSolution = search.getBestSolution();
+                bestEvaluation = eval;
+            }
+        }
+        return bestSolution;
+    }
+
+    /**
+     * Stops all islands of the running model. If the model is not running, the next run stops right away.
+     */
+    public void stop() {
+        stop.set(true);
+    }
+
+    private void runIsland(int island) {
+        LocalSearch<SolutionType> search = islands.get(island);
+        StopCriterion epoch = new Epoch();
+        search.addStopCriterion(epoch);
+        search.setStopCriterionCheckPeriod(STOP_CRITERION_CHECK_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        try {
+            islandSteps[island] = 0;
+            islandImmigrants[island] = 0;
+            double sentScore = Double.NEGATIVE_INFINITY;
+            while(!stop.get()){
+                search.start();
+                islandSteps[island] += search.getSteps();
+                if(System.nanoTime() - deadlineNanos >= 0 || isTargetReached(search)){
+                    stop.set(true);
+                }
+                // emigrate: send a copy of the best solution if it improved since the last epoch
+                Evaluation best = search.getBestSolutionEvaluation();
+                double score = best != null ? sign * best.getValue() : Double.NEGATIVE_INFINITY;
+                if(score > sentScore){
+                    channel.send(island, Solution.checkedCopy(search.getBestSolution()), score);
+                    sentScore = score;
+                }
+                // immigrate: continue from the received migrant if it beats the island's best solution
+                MigrationChannel.Migrant<SolutionType> migrant = channel.receive(island);
+                if(!stop.get() && migrant != null && migrant.getScore() > score){
+                    search.setCurrentSolution(Solution.checkedCopy(migrant.getSolution()));
+                    islandImmigrants[island]++;
+                }
+            }
+        } finally {
+            search.removeStopCriterion(epoch);
+        }
+    }
+
+    private boolean isTargetReached(Search<?> search) {
+        Evaluation best = search.getBestSolutionEvaluation();
+        return !Double.isNaN(targetValue) && best != null && sign * best.getValue() >= sign * targetValue;
+    }
+
+    /**
+     * @return the best solution found in the last run, or <code>null</code>
+     */
+    public SolutionType getBestSolution() {
+        return bestSolution;
+    }
+
+    /**
+     * @return evaluation of the best solution found in the last run, or <code>null</code>
+     */
+    public Evaluation getBestSolutionEvaluation() {
+        return bestEvaluation;
+    }
+
+    /**
+     * @return wall time of the last run (in milliseconds)
+     */
+    public long getRuntime() {
+        return runtime;
+    }
+
+    /**
+     * @return number of steps performed by each island in the last run
+     */
+    public long[] getIslandSteps() {
+        return islandSteps.clone();
+    }
+
+    /**
+     * @return number of migrants each island continued from in the last run
+     */
+    public long[] getIslandImmigrants() {
+        return islandImmigrants.clone();
+    }
+
+    public long getTotalSteps() {
+        long total = 0;
+        for(long steps : islandSteps){
+            total += steps;
+        }
+        return total;
+    }
+
+    /**
+     * @return number of solutions sent by all islands in the last run
+     */
+    public long getNumMigrantsSent() {
+        return channel != null ? channel.getNumSent() : 0;
+    }
+
+    /**
+     * Ends the current run of an island: after the epoch length, at the deadline or as soon as the model stops. An
+     * island reaching the target value stops all islands.
+     */
+    private class Epoch implements StopCriterion {
+
+        @Override
+        public boolean searchShouldStop(Search<?> search) {
+            if(isTargetReached(search)){
+                stop.set(true);
+            }
+            return stop.get()
+                    || search.getRuntime() >= migrationIntervalMillis
+                    || search.getSteps() >= migrationSteps
+                    || System.nanoTime() - deadlineNanos >= 0;
+        }
+
+    }
+
+}
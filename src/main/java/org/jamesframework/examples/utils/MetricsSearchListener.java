@@ -0,0 +1,179 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jamesframework.examples.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.jamesframework.core.problems.constraints.validations.Validation;
+import org.jamesframework.core.problems.objectives.evaluations.Evaluation;
+import org.jamesframework.core.problems.sol.Solution;
+import org.jamesframework.core.search.NeighbourhoodSearch;
+import org.jamesframework.core.search.Search;
+import org.jamesframework.core.search.listeners.SearchListener;
+
+/**
+ * Search listener that records search metrics with low overhead, instead of printing progress: the number of steps,
+ * the improvement trajectory (time, step and value of every new best solution), the time and steps to the best
+ * solution and, for neighbourhood searches, the number of accepted and rejected moves. The callbacks only update
+ * atomic counters and write into a preallocated ring buffer, so they do not lock or allocate and may be called
+ * concurrently (e.g. by the replicas of a parallel tempering search). Metrics can be queried at any time, also
+ * while the search is running, through {@link #getMetrics()}.
+ * <p>
+ * The listener is reset when a search is started, so it should be attached to a single search at a time.
+ */
+public class MetricsSearchListener implements SearchListener<Solution> {
+
+    public static final int DEFAULT_TRAJECTORY_CAPACITY = 1024;
+
+    private final int capacity;
+    // trajectory ring buffer: improvement i is stored at slot i % capacity; the slot's sequence number is set
+    // to i+1 after the data has been written, and to 0 while it is being (over)written; the data is stored in
+    // atomic arrays too (values as raw double bits), so that reads of the data can not be reordered with the reads
+    // of the sequence number around them
+    private final AtomicLongArray trajectoryNanos;
+    private final AtomicLongArray trajectorySteps;
+    private final AtomicLongArray trajectoryValues;
+    private final AtomicLongArray trajectorySeq;
+    private final AtomicLong numImprovements = new AtomicLong();
+    private final AtomicLong steps = new AtomicLong();
+
+    private volatile Search<?> search;
+    private volatile long startNanos;
+    // negative while the search is running
+    private volatile long stopNanos = -1;
+    // final move counts, captured when the search stops
+    private volatile long acceptedMoves;
+    private volatile long rejectedMoves;
+
+    public MetricsSearchListener() {
+        this(DEFAULT_TRAJECTORY_CAPACITY);
+    }
+
+    /**
+     * @param trajectoryCapacity maximum number of recorded improvements (older ones are dropped)
+     */
+    public MetricsSearchListener(int trajectoryCapacity) {
+        if(trajectoryCapacity <= 0){
+            throw new IllegalArgumentException("Trajectory capacity should be strictly positive: " + trajectoryCapacity);
+        }
+        this.capacity = trajectoryCapacity;
+        trajectoryNanos = new AtomicLongArray(trajectoryCapacity);
+        trajectorySteps = new AtomicLongArray(trajectoryCapacity);
+        trajectoryValues = new AtomicLongArray(trajectoryCapacity);
+        trajectorySeq = new AtomicLongArray(trajectoryCapacity);
+    }
+
+    @Override
+    public void searchStarted(Search search) {
+        for(int i = 0; i < capacity; i++){
+            trajectorySeq.set(i, 0);
+        }
+        numImprovements.set(0);
+        steps.set(0);
+        acceptedMoves = 0;
+        rejectedMoves = 0;
+        stopNanos = -1;
+        startNanos = System.nanoTime();
+        this.search = search;
+    }
+
+    @Override
+    public void searchStopped(Search search) {
+        if(search instanceof NeighbourhoodSearch){
+            NeighbourhoodSearch<?> neighSearch = (NeighbourhoodSearch<?>) search;
+            acceptedMoves = neighSearch.getNumAcceptedMoves();
+            rejectedMoves = neighSearch.getNumRejectedMoves();
+        }
+        stopNanos = System.nanoTime();
+    }
+
+    @Override
+    public void stepCompleted(Search search, long numSteps) {
+        steps.lazySet(numSteps);
+    }
+
+    @Override
+    public void newBestSolution(Search search,
+                                Solution newBestSolution,
+                                Evaluation newBestSolutionEvaluation,
+                                Validation newBestSolutionValidation) {
+        long time = System.nanoTime() - startNanos;
+        long step = steps.get();
+        double value = newBestSolutionEvaluation.getValue();
+        long i = numImprovements.getAndIncrement();
+        int slot = (int) (i % capacity);
+        trajectorySeq.set(slot, 0);
+        trajectoryNanos.set(slot, time);
+        trajectorySteps.set(slot, step);
+        trajectoryValues.set(slot, Double.doubleToRawLongBits(value));
+        trajectorySeq.set(slot, i + 1);
+    }
+
+    /**
+     * Takes a snapshot of the metrics recorded so far. If improvements are found while the snapshot is taken, the
+     * trajectory may miss the points that were being written.
+     *
+     * @return snapshot of the current metrics
+     */
+    public SearchMetrics getMetrics() {
+        long stop = stopNanos;
+        long runtimeNanos = (stop >= 0 ? stop : System.nanoTime()) - startNanos;
+        long accepted = acceptedMoves;
+        long rejected = rejectedMoves;
+        Search<?> s = search;
+        if(stop < 0 && s instanceof NeighbourhoodSearch){
+            // running: counts may be slightly out of date
+            accepted = ((NeighbourhoodSearch<?>) s).getNumAcceptedMoves();
+            rejected = ((NeighbourhoodSearch<?>) s).getNumRejectedMoves();
+        }
+        // copy the published trajectory points, oldest first
+        long n = numImprovements.get();
+        long first = Math.max(0, n - capacity);
+        double[] times = new double[(int) (n - first)];
+        long[] stepsAt = new long[times.length];
+        double[] values = new double[times.length];
+        int len = 0;
+        for(long i = first; i < n; i++){
+            int slot = (int) (i % capacity);
+            if(trajectorySeq.get(slot) != i + 1){
+                continue;
+            }
+            long time = trajectoryNanos.get(slot);
+            long step = trajectorySteps.get(slot);
+            double value = Double.longBitsToDouble(trajectoryValues.get(slot));
+            if(trajectorySeq.get(slot) != i + 1){
+                continue;
+            }
+            times[len] = time / 1e6;
+            stepsAt[len] = step;
+            values[len] = value;
+            len++;
+        }
+        if(len < times.length){
+            times = Arrays.copyOf(times, len);
+            stepsAt = Arrays.copyOf(stepsAt, len);
+            values = Arrays.copyOf(values, len);
+        }
+        return new SearchMetrics(runtimeNanos / 1_000_000, steps.get(), n,
+                                 len > 0 ? values[len - 1] : Double.NaN,
+                                 len > 0 ? times[len - 1] : Double.NaN,
+                                 len > 0 ? stepsAt[len - 1] : -1,
+                                 accepted, rejected, times, stepsAt, values);
+    }
+
+}
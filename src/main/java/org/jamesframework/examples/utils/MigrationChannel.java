@@ -0,0 +1,146 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jamesframework.examples.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free channel through which the islands of an island model exchange their elite solutions. The islands are
+ * connected in a ring: island i sends to island (i + 1) mod n. Every island has a single-slot mailbox holding the
+ * best migrant that arrived since it last looked; a migrant only replaces the one already waiting if it has a better
+ * score. The channel also keeps the best migrant ever sent, across all islands.
+ * <p>
+ * Scores are always maximized: islands of a minimization problem should send the negated value. Solutions are handed
+ * over as is, so senders should send a copy of their solution and receivers should not modify what they receive.
+ *
+ * @param <T> solution type
+ */
+public class MigrationChannel<T> {
+
+    private final AtomicReferenceArray<Migrant<T>> mailboxes;
+    private final AtomicReference<Migrant<T>> best = new AtomicReference<>();
+    private final AtomicLong numSent = new AtomicLong();
+    private final AtomicLong numReceived = new AtomicLong();
+
+    /**
+     * @param numIslands number of islands connected by the channel
+     */
+    public MigrationChannel(int numIslands) {
+        if(numIslands <= 0){
+            throw new IllegalArgumentException("Number of islands should be strictly positive: " + numIslands);
+        }
+        mailboxes = new AtomicReferenceArray<>(numIslands);
+    }
+
+    public int getNumIslands() {
+        return mailboxes.length();
+    }
+
+    /**
+     * Sends a solution from the given island to the next island in the ring.
+     *
+     * @param island index of the sending island
+     * @param solution the solution, not modified afterwards by the sender
+     * @param score score of the solution (higher is better)
+     */
+    public void send(int island, T solution, double score) {
+        Migrant<T> migrant = new Migrant<>(island, solution, score);
+        offer((island + 1) % mailboxes.length(), migrant);
+        Migrant<T> cur;
+        do {
+            cur = best.get();
+        } while((cur == null || score > cur.score) && !best.compareAndSet(cur, migrant));
+        numSent.incrementAndGet();
+    }
+
+    /**
+     * Takes the migrant waiting for the given island, if any, emptying its mailbox.
+     *
+     * @param island index of the receiving island
+     * @return the best migrant sent to the island since its last call, or <code>null</code>
+     */
+    public Migrant<T> receive(int island) {
+        Migrant<T> migrant = mailboxes.getAndSet(island, null);
+        if(migrant != null){
+            numReceived.incrementAndGet();
+        }
+        return migrant;
+    }
+
+    /**
+     * @return the best migrant sent by any island, or <code>null</code> if nothing has been sent yet
+     */
+    public Migrant<T> getBest() {
+        return best.get();
+    }
+
+    public long getNumSent() {
+        return numSent.get();
+    }
+
+    /**
+     * @return number of migrants taken out of a mailbox
+     */
+    public long getNumReceived() {
+        return numReceived.get();
+    }
+
+    private void offer(int island, Migrant<T> migrant) {
+        Migrant<T> cur;
+        do {
+            cur = mailboxes.get(island);
+            if(cur != null && cur.score >= migrant.score){
+                return;
+            }
+        } while(!mailboxes.compareAndSet(island, cur, migrant));
+    }
+
+    /**
+     * A solution in transit, with its score and the island it came from.
+     *
+     * @param <T> solution type
+     */
+    public static class Migrant<T> {
+
+        private final int source;
+        private final T solution;
+        private final double score;
+
+        private Migrant(int source, T solution, double score) {
+            this.source = source;
+            this.solution = solution;
+            this.score = score;
+        }
+
+        public int getSource() {
+            return source;
+        }
+
+        public T getSolution() {
+            return solution;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+    }
+
+}
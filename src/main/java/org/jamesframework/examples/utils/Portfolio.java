@@ -0,0 +1,304 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jamesframework.examples.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Portfolio of algorithms solving the same instance. By default all members run concurrently, each with its own time
+ * budget, so that comparing them takes the time of a single run instead of the sum of all runs. As soon as a member
+ * finishes with a final result, i.e. a proven optimum or a result reaching the target score, the other members are
+ * asked to stop. The members can also run one after the other, e.g. to measure each of them on an idle machine.
+ * <p>
+ * Members decide themselves how many threads they use; {@link #partitionCores(int, boolean...)} divides the cores
+ * among them.
+ *
+ * @param <S> solution type
+ */
+public class Portfolio<S> {
+
+    /**
+     * Algorithm in a portfolio.
+     *
+     * @param <S> solution type
+     */
+    public interface Member<S> {
+
+        /**
+         * Runs the algorithm until its own stop criteria are met or {@link #stop()} is called.
+         *
+         * @return the result of the run
+         */
+        SolverResult<S> run();
+
+        /**
+         * Asks the algorithm to stop as soon as possible. Called from another thread, possibly before the run has
+         * started, in which case the run should end right away.
+         */
+        void stop();
+
+        /**
+         * @return true if the result of the last run is proven to be optimal
+         */
+        default boolean isOptimal() {
+            return false;
+        }
+
+    }
+
+    private final boolean minimizing;
+    private final List<Entry> entries = new ArrayList<>();
+    private double targetScore = Double.NaN;
+    private boolean concurrent = true;
+    // state of the last run
+    private Entry winner;
+    private long runtime;
+
+    /**
+     * @param minimizing whether lower scores are better
+     */
+    public Portfolio(boolean minimizing) {
+        this.minimizing = minimizing;
+    }
+
+    /**
+     * @param targetScore score at which a result is final, e.g. a known optimum; NaN for none (default)
+     */
+    public void setTargetScore(double targetScore) {
+        this.targetScore = targetScore;
+    }
+
+    public double getTargetScore() {
+        return targetScore;
+    }
+
+    /**
+     * @param concurrent whether the members run concurrently (default) or one after the other
+     */
+    public void setConcurrent(boolean concurrent) {
+        this.concurrent = concurrent;
+    }
+
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    /**
+     * Adds a member to the portfolio.
+     *
+     * @param name name of the algorithm
+     * @param threads number of threads used by the member, for reporting
+     * @param member the member
+     */
+    public void add(String name, int threads, Member<S> member) {
+        entries.add(new Entry(name, threads, member));
+    }
+
+    /**
+     * Runs all members and waits until they have finished.
+     *
+     * @return the best result of any member, or <code>null</code> if no member found a solution
+     */
+    public SolverResult<S> run() {
+        if(entries.isEmpty()){
+            throw new IllegalStateException("Portfolio has no members.");
+        }
+        winner = null;
+        for(Entry entry : entries){
+            entry.result = null;
+        }
+        long start = System.nanoTime();
+        if(concurrent){
+            ExecutorService pool = Executors.newFixedThreadPool(entries.size());
+            try {
+                CompletionService<Entry> completed = new ExecutorCompletionService<>(pool);
+                for(Entry entry : entries){
+                    completed.submit(() -> entry.run(start));
+                }
+                for(int i = 0; i < entries.size(); i++){
+                    Entry entry = completed.take().get();
+                    if(winner == null && isFinal(entry)){
+                        winner = entry;
+                        stopAll();
+                    }
+                }
+            } catch (InterruptedException ex) {
+                stopAll();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the portfolio", ex);
+            } catch (ExecutionException ex) {
+                stopAll();
+                throw new IllegalStateException("Portfolio member failed", ex.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        } else {
+            for(Entry entry : entries){
+                entry.run(start);
+                if(winner == null && isFinal(entry)){
+                    winner = entry;
+                }
+            }
+        }
+        runtime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Entry best = getBest();
+        return best != null ? best.getResult() : null;
+    }
+
+    private void stopAll() {
+        for(Entry entry : entries){
+            entry.member.stop();
+        }
+    }
+
+    private boolean isFinal(Entry entry) {
+        if(entry.member.isOptimal()){
+            return true;
+        }
+        double score = entry.result.getScore();
+        return !Double.isNaN(targetScore) && !Double.isNaN(score)
+                && (minimizing ? score <= targetScore : score >= targetScore);
+    }
+
+    /**
+     * @return the members with their results of the last run, in the order in which they were added
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @return the member with the best result in the last run (the first one in case of ties), or <code>null</code>
+     *         if no member found a solution
+     */
+    public Entry getBest() {
+        Entry best = null;
+        for(Entry entry : entries){
+            double score = entry.result != null ? entry.result.getScore() : Double.NaN;
+            if(!Double.isNaN(score) && (best == null || (minimizing ? score < best.result.getScore()
+                                                                     : score > best.result.getScore()))){
+                best = entry;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the first member that finished with a final result in the last run, or <code>null</code> if there was
+     *         none
+     */
+    public Entry getWinner() {
+        return winner;
+    }
+
+    /**
+     * @return wall time of the last run (in milliseconds)
+     */
+    public long getRuntime() {
+        return runtime;
+    }
+
+    /**
+     * Divides the given number of cores among the members of a portfolio: every member gets one core, and the
+     * remaining cores are dealt out in turn to the members that can use several threads. With fewer cores than
+     * members, each member still gets one core.
+     *
+     * @param numCores number of available cores
+     * @param scalable for each member, whether it can use more than one thread
+     * @return number of cores per member
+     */
+    public static int[] partitionCores(int numCores, boolean... scalable) {
+        int[] cores = new int[scalable.length];
+        int remaining = numCores;
+        int numScalable = 0;
+        for(int i = 0; i < scalable.length; i++){
+            cores[i] = 1;
+            remaining--;
+            if(scalable[i]){
+                numScalable++;
+            }
+        }
+        for(int i = 0; remaining > 0 && numScalable > 0; i = (i + 1) % scalable.length){
+            if(scalable[i]){
+                cores[i]++;
+                remaining--;
+            }
+        }
+        return cores;
+    }
+
+    /**
+     * A portfolio member with its name, number of threads and the result of its last run.
+     */
+    public class Entry {
+
+        private final String name;
+        private final int threads;
+        private final Member<S> member;
+        private SolverResult<S> result;
+        private long finishTime;
+
+        private Entry(String name, int threads, Member<S> member) {
+            this.name = name;
+            this.threads = threads;
+            this.member = member;
+        }
+
+        private Entry run(long start) {
+            result = member.run();
+            finishTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return this;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public Member<S> getMember() {
+            return member;
+        }
+
+        /**
+         * @return the result of the last run, or <code>null</code> if the member has not run
+         */
+        public SolverResult<S> getResult() {
+            return result;
+        }
+
+        /**
+         * @return time at which the member finished, since the start of the portfolio (in milliseconds)
+         */
+        public long getFinishTime() {
+            return finishTime;
+        }
+
+    }
+
+}
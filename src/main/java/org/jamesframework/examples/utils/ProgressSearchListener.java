@@ -23,20 +23,35 @@ import org.jamesframework.core.search.Search;
 import org.jamesframework.core.search.listeners.SearchListener;
 
 /**
- * Search listener that prints search progress to standard output.
+ * Search listener that prints search progress to standard output. Output goes through an {@link AsyncProgressSink},
+ * so new best solutions found in quick succession are coalesced and do not slow down the search.
  * 
  * @author <a href="mailto:herman.debeukelaer@ugent.be">Herman De Beukelaer</a>
  */
 public class ProgressSearchListener implements SearchListener<Solution> {
 
+    private final AsyncProgressSink sink;
+
+    public ProgressSearchListener() {
+        this(AsyncProgressSink.getDefault());
+    }
+
+    public ProgressSearchListener(AsyncProgressSink sink) {
+        this.sink = sink;
+    }
+
     @Override
     public void searchStarted(Search search) {
-        System.out.println(" >>> Search started");
+        sink.log(" >>> Search started");
     }
 
     @Override
     public void searchStopped(Search search) {
-        System.out.println(" >>> Search stopped (" + search.getRuntime()/1000 + " sec, " + search.getSteps() + " steps)");
+        // write the last new best solution before the search stopped message
+        sink.flush();
+        sink.log(" >>> Search stopped (" + search.getRuntime()/1000 + " sec, " + search.getSteps() + " steps)");
+        // write everything before the caller continues printing
+        sink.flush();
     }
 
     @Override
@@ -44,7 +59,7 @@ public class ProgressSearchListener implements SearchListener<Solution> {
                                 Solution newBestSolution,
                                 Evaluation newBestSolutionEvaluation,
                                 Validation newBestSolutionValidation) {
-        System.out.println(" >>> New best solution: " + newBestSolutionEvaluation);
+        sink.update(search, " >>> New best solution: ", newBestSolutionEvaluation);
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jamesframework.examples.util;
+
+/**
+ * Immutable snapshot of the metrics recorded by a {@link MetricsSearchListener}. Times are in milliseconds since
+ * the search was started. The trajectory holds the most recent improvements of the best solution (time, step and
+ * value), in the order in which they were found; older improvements are dropped when the listener's ring buffer
+ * is full.
+ */
+public class SearchMetrics {
+
+    private final long runtime;
+    private final long steps;
+    private final long numImprovements;
+    private final double bestValue;
+    private final double timeToBest;
+    private final long stepsToBest;
+    private final long acceptedMoves;
+    private final long rejectedMoves;
+    private final double[] trajectoryTimes;
+    private final long[] trajectorySteps;
+    private final double[] trajectoryValues;
+
+    SearchMetrics(long runtime, long steps, long numImprovements, double bestValue, double timeToBest,
+                  long stepsToBest, long acceptedMoves, long rejectedMoves,
+                  double[] trajectoryTimes, long[] trajectorySteps, double[] trajectoryValues) {
+        this.runtime = runtime;
+        this.steps = steps;
+        this.numImprovements = numImprovements;
+        this.bestValue = bestValue;
+        this.timeToBest = timeToBest;
+        this.stepsToBest = stepsToBest;
+        this.acceptedMoves = acceptedMoves;
+        this.rejectedMoves = rejectedMoves;
+        this.trajectoryTimes = trajectoryTimes;
+        this.trajectorySteps = trajectorySteps;
+        this.trajectoryValues = trajectoryValues;
+    }
+
+    /**
+     * @return runtime in milliseconds, up to now if the search is still running
+     */
+    public long getRuntime() {
+        return runtime;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return average number of steps per second, 0 if no time has passed
+     */
+    public double getStepsPerSecond() {
+        return runtime > 0 ? steps * 1000.0 / runtime : 0.0;
+    }
+
+    /**
+     * @return number of times a new best solution was found, including the initial solution
+     */
+    public long getNumImprovements() {
+        return numImprovements;
+    }
+
+    /**
+     * @return value of the best solution, NaN if no solution has been found yet
+     */
+    public double getBestValue() {
+        return bestValue;
+    }
+
+    /**
+     * @return time in milliseconds at which the best solution was found, NaN if none has been found yet
+     */
+    public double getTimeToBest() {
+        return timeToBest;
+    }
+
+    /**
+     * @return number of steps completed before the best solution was found, -1 if none has been found yet
+     */
+    public long getStepsToBest() {
+        return stepsToBest;
+    }
+
+    public long getAcceptedMoves() {
+        return acceptedMoves;
+    }
+
+    public long getRejectedMoves() {
+        return rejectedMoves;
+    }
+
+    /**
+     * @return fraction of the evaluated moves that was accepted, NaN if no moves were evaluated or the search does
+     *         not report moves
+     */
+    public double getAcceptanceRate() {
+        long total = acceptedMoves + rejectedMoves;
+        return total > 0 ? (double) acceptedMoves / total : Double.NaN;
+    }
+
+    /**
+     * @return number of points in the recorded trajectory
+     */
+    public int getTrajectoryLength() {
+        return trajectoryValues.length;
+    }
+
+    /**
+     * @return times (in milliseconds) of the recorded improvements
+     */
+    public double[] getTrajectoryTimes() {
+        return trajectoryTimes.clone();
+    }
+
+    /**
+     * @return numbers of steps completed before each of the recorded improvements
+     */
+    public long[] getTrajectorySteps() {
+        return trajectorySteps.clone();
+    }
+
+    /**
+     * @return values of the recorded improvements
+     */
+    public double[] getTrajectoryValues() {
+        return trajectoryValues.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d steps in %d ms (%.0f steps/sec), %d improvements, best %s after %.1f ms (%d steps), "
+                             + "acceptance rate %.3f",
+                             steps, runtime, getStepsPerSecond(), numImprovements, bestValue, timeToBest,
+                             stepsToBest, getAcceptanceRate());
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jamesframework.examples.util;
+
+/**
+ * Result of solving a single problem instance: the best solution found, its score and the effort spent.
+ *
+ * @param <S> solution type
+ */
+public class SolverResult<S> {
+
+    private final String instance;
+    private final S solution;
+    private final double score;
+    private final long runtime;
+    private final long steps;
+
+    /**
+     * @param instance name of the solved instance
+     * @param solution best solution found, {@code null} if none
+     * @param score score of the best solution, in the problem's own units
+     * @param runtime runtime in milliseconds
+     * @param steps number of search steps
+     */
+    public SolverResult(String instance, S solution, double score, long runtime, long steps) {
+        this.instance = instance;
+        this.solution = solution;
+        this.score = score;
+        this.runtime = runtime;
+        this.steps = steps;
+    }
+
+    public String getInstance() {
+        return instance;
+    }
+
+    public S getSolution() {
+        return solution;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * @return runtime in milliseconds
+     */
+    public long getRuntime() {
+        return runtime;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    @Override
+    public String toString() {
+        return instance + ": score " + score + " (" + runtime + " ms, " + steps + " steps)";
+    }
+
+}
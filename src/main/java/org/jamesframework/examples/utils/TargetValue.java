@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jamesframework.examples.util;
+
+import org.jamesframework.core.problems.objectives.evaluations.Evaluation;
+import org.jamesframework.core.search.Search;
+import org.jamesframework.core.search.stopcriteria.StopCriterion;
+
+/**
+ * Stop criterion that stops a search as soon as its best solution reaches a given target value, e.g. a known
+ * optimum: when the best solution's evaluation is at least the target for a maximization problem, or at most the
+ * target for a minimization problem.
+ * <p>
+ * Stop criteria are checked periodically, by default once per second; lower the check period of the search (see
+ * {@link Search#setStopCriterionCheckPeriod(long, java.util.concurrent.TimeUnit)}) to stop sooner after the target
+ * has been reached.
+ */
+public class TargetValue implements StopCriterion {
+
+    private final double target;
+
+    /**
+     * @param target target value of the best solution
+     */
+    public TargetValue(double target) {
+        this.target = target;
+    }
+
+    public double getTarget() {
+        return target;
+    }
+
+    @Override
+    public boolean searchShouldStop(Search<?> search) {
+        Evaluation best = search.getBestSolutionEvaluation();
+        if(best == null){
+            return false;
+        }
+        return search.getProblem().isMinimizing() ? best.getValue() <= target : best.getValue() >= target;
+    }
+
+    @Override
+    public String toString() {
+        return "{target value: " + target + "}";
+    }
+
+}
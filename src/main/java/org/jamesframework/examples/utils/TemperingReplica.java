@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jamesframework.examples.util;
+
+import org.jamesframework.core.problems.Problem;
+import org.jamesframework.core.problems.constraints.validations.Validation;
+import org.jamesframework.core.problems.objectives.evaluations.Evaluation;
+import org.jamesframework.core.problems.sol.Solution;
+import org.jamesframework.core.search.algo.MetropolisSearch;
+import org.jamesframework.core.search.neigh.Neighbourhood;
+
+/**
+ * Metropolis search used as a replica of a parallel tempering search, keeping statistics over all its runs: the
+ * number of accepted and rejected moves and the number of solutions received from a neighbouring replica (swaps).
+ * Create replicas through the factory argument of the parallel tempering constructor to keep track of them.
+ *
+ * @param <SolutionType> solution type
+ */
+public class TemperingReplica<SolutionType extends Solution> extends MetropolisSearch<SolutionType> {
+
+    // totals over all finished runs; only updated while the replica is not running
+    private long totalAcceptedMoves = 0;
+    private long totalRejectedMoves = 0;
+    private long numSwaps = 0;
+
+    public TemperingReplica(Problem<SolutionType> problem, Neighbourhood<? super SolutionType> neighbourhood,
+                            double temperature) {
+        super(problem, neighbourhood, temperature);
+    }
+
+    /**
+     * Parallel tempering swaps solutions between replicas through this method, in between replica runs, so every
+     * call is counted as a swap.
+     */
+    @Override
+    public void setCurrentSolution(SolutionType solution, Evaluation evaluation, Validation validation) {
+        super.setCurrentSolution(solution, evaluation, validation);
+        numSwaps++;
+    }
+
+    @Override
+    protected void searchStopped() {
+        super.searchStopped();
+        // move counters are reset when a run starts
+        totalAcceptedMoves += getNumAcceptedMoves();
+        totalRejectedMoves += getNumRejectedMoves();
+    }
+
+    public long getTotalAcceptedMoves() {
+        return totalAcceptedMoves;
+    }
+
+    public long getTotalRejectedMoves() {
+        return totalRejectedMoves;
+    }
+
+    /**
+     * @return fraction of the evaluated moves that was accepted, over all runs
+     */
+    public double getAcceptanceRate() {
+        long total = totalAcceptedMoves + totalRejectedMoves;
+        return total > 0 ? (double) totalAcceptedMoves / total : 0.0;
+    }
+
+    /**
+     * @return number of times this replica took over the solution of a neighbouring replica
+     */
+    public long getNumSwaps() {
+        return numSwaps;
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.aoros.bagging.local.search;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+/**
+ * Checks the incremental scores and move deltas of {@link BaggingSolution}
+ * against a score computed from scratch, over random moves on the bundled
+ * instances.
+ */
+public class BaggingSolutionTest {
+
+    private static final int NUM_MOVES = 2000;
+
+    @Test
+    public void deltasMatchFullRecompute() throws IOException {
+        Random r = new Random(42);
+        for (int g = 1; g <= 11; g++) {
+            String instance = "g" + g;
+            BaggingItems items = Bagging.readInstance("src/main/resources/" + instance);
+            if (items.getNumAvailableBags() < 2)
+                continue;
+            BaggingSolution solution = new BaggingData(items).createRandomSolution();
+            assertScores(instance, solution);
+            int numItems = items.getSizes().length;
+            for (int k = 0; k < NUM_MOVES; k++) {
+                int itemId = r.nextInt(numItems);
+                int bag = solution.getBagOfItem(itemId);
+                int score = solution.getSolutionScore();
+                int expected;
+                switch (r.nextInt(3)) {
+                    case 0: {
+                        // move to another bag (or add if the item is not bagged)
+                        int toBag = r.nextInt(solution.getNumBags());
+                        if (bag < 0) {
+                            expected = score + solution.getAddItemDelta(toBag, itemId);
+                            solution.addItemToBag(toBag, itemId);
+                        } else {
+                            int inclusivity = solution.getInclusivityScore()
+                                    + solution.getMoveItemInclusivityDelta(itemId, bag, toBag);
+                            int size = solution.getSizeViolationScore()
+                                    + solution.getMoveItemSizeDelta(itemId, bag, toBag);
+                            expected = score + solution.getMoveItemDelta(itemId, bag, toBag);
+                            solution.moveItem(itemId, bag, toBag);
+                            assertEquals(instance + ": inclusivity after move", inclusivity, solution.getInclusivityScore());
+                            assertEquals(instance + ": size after move", size, solution.getSizeViolationScore());
+                        }
+                        break;
+                    }
+                    case 1: {
+                        // swap with an item in another bag
+                        int other = r.nextInt(numItems);
+                        int otherBag = solution.getBagOfItem(other);
+                        if (bag < 0 || otherBag < 0 || bag == otherBag)
+                            continue;
+                        int inclusivity = solution.getInclusivityScore()
+                                + solution.getSwapItemsInclusivityDelta(itemId, other);
+                        int size = solution.getSizeViolationScore() + solution.getSwapItemsSizeDelta(itemId, other);
+                        expected = score + solution.getSwapItemsDelta(itemId, other);
+                        solution.swapItems(itemId, other);
+                        assertEquals(instance + ": inclusivity after swap", inclusivity, solution.getInclusivityScore());
+                        assertEquals(instance + ": size after swap", size, solution.getSizeViolationScore());
+                        break;
+                    }
+                    default: {
+                        // remove the item, then put it back in a random bag
+                        if (bag < 0)
+                            continue;
+                        expected = score + solution.getRemoveItemDelta(bag, itemId);
+                        solution.removeItemFromBag(bag, itemId);
+                        assertEquals(instance + ": score after remove", expected, solution.getSolutionScore());
+                        assertScores(instance, solution);
+                        int toBag = r.nextInt(solution.getNumBags());
+                        expected = solution.getSolutionScore() + solution.getAddItemDelta(toBag, itemId);
+                        solution.addItemToBag(toBag, itemId);
+                    }
+                }
+                assertEquals(instance + ": score after move " + k, expected, solution.getSolutionScore());
+                assertScores(instance, solution);
+            }
+        }
+    }
+
+    @Test
+    public void copyKeepsScores() throws IOException {
+        BaggingItems items = Bagging.readInstance("src/main/resources/g1");
+        BaggingSolution solution = new BaggingData(items).createRandomSolution();
+        BaggingSolution copy = new BaggingSolution(solution);
+        assertEquals(solution.getSolutionScore(), copy.getSolutionScore());
+        assertScores("g1 copy", copy);
+    }
+
+    /**
+     * Recomputes the score of the solution from the inclusivity sets and bag
+     * sizes, and compares it with the incrementally maintained scores.
+     */
+    private static void assertScores(String instance, BaggingSolution solution) {
+        BaggingItems items = solution.getItems();
+        Set<Integer>[] allowed = items.getInclusivitySets();
+        int[] sizes = items.getSizes();
+        int inclusivity = 0;
+        int sizeViolation = 0;
+        for (int bag = 0; bag < solution.getNumBags(); bag++) {
+            int bagSize = 0;
+            for (int itemId : solution.getBagsOfItems()[bag]) {
+                bagSize += sizes[itemId];
+                for (int other : solution.getBagsOfItems()[bag]) {
+                    if (other != itemId && !allowed[itemId].contains(other))
+                        inclusivity--;
+                }
+            }
+            assertEquals(instance + ": size of bag " + bag, bagSize, solution.getBagSize(bag));
+            sizeViolation += Math.min(0, items.getMaxBagCapacity() - bagSize);
+        }
+        assertEquals(instance + ": inclusivity score", inclusivity, solution.getInclusivityScore());
+        assertEquals(instance + ": size violation score", sizeViolation, solution.getSizeViolationScore());
+        assertEquals(instance + ": solution score", inclusivity + sizeViolation, solution.getSolutionScore());
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jamesframework.examples.knapsack;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import org.jamesframework.examples.knapsack.KnapsackTestInstances.Instance;
+import org.junit.Test;
+
+/**
+ * Compares the optimum found by {@link BranchAndBoundKnapsack} with the one computed by dynamic programming, on the
+ * bundled instance and on small random instances with many ties and items without weight or profit (see
+ * {@link KnapsackTestInstances}).
+ */
+public class BranchAndBoundKnapsackTest {
+
+    @Test
+    public void matchesDynamicProgrammingOnBundledInstance() throws IOException {
+        for(Instance instance : KnapsackTestInstances.bundled("knapsack-100")){
+            assertSameOptimum(instance);
+        }
+    }
+
+    @Test
+    public void matchesDynamicProgrammingOnRandomInstances() {
+        for(Instance instance : KnapsackTestInstances.random()){
+            assertSameOptimum(instance);
+        }
+    }
+
+    private static void assertSameOptimum(Instance instance){
+        double expected = KnapsackTestInstances.optimum(instance.data, instance.capacity);
+        BranchAndBoundKnapsack.Result result = new BranchAndBoundKnapsack(instance.capacity).solve(instance.data);
+        double profit = 0.0, weight = 0.0;
+        for(int id : result.getSolution().getSelectedIDs()){
+            profit += instance.data.getProfit(id);
+            weight += instance.data.getWeight(id);
+        }
+        assertTrue(instance.name + ": not proven optimal", result.isOptimal());
+        assertEquals(instance.name + ": optimum", expected, result.getProfit(), 1e-6);
+        assertEquals(instance.name + ": reported profit", profit, result.getProfit(), 1e-9);
+        assertEquals(instance.name + ": reported weight", weight, result.getWeight(), 1e-9);
+        assertTrue(instance.name + ": capacity exceeded", weight <= instance.capacity);
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jamesframework.examples.knapsack;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import org.jamesframework.core.subset.SubsetSolution;
+import org.jamesframework.examples.knapsack.KnapsackTestInstances.Instance;
+import org.junit.Test;
+
+/**
+ * Checks that solving the core of a {@link KnapsackReduction} exactly and mapping the result back with
+ * {@link KnapsackReduction#toBestOriginal(SubsetSolution)} yields the optimum of the full instance, both computed by
+ * dynamic programming (see {@link KnapsackTestInstances}). The random instances include fractional profits, whose
+ * bounds carry rounding errors.
+ */
+public class KnapsackReductionTest {
+
+    @Test
+    public void reducedOptimumMatchesFullOptimumOnBundledInstance() throws IOException {
+        for(Instance instance : KnapsackTestInstances.bundled("knapsack-1000")){
+            assertSameOptimum(instance);
+        }
+    }
+
+    @Test
+    public void reducedOptimumMatchesFullOptimumOnRandomInstances() {
+        for(Instance instance : KnapsackTestInstances.random()){
+            assertSameOptimum(instance);
+        }
+    }
+
+    private static void assertSameOptimum(Instance instance){
+        double expected = KnapsackTestInstances.optimum(instance.data, instance.capacity);
+        KnapsackReduction reduction = new KnapsackReduction(instance.data, instance.capacity);
+        // an empty core has no solutions: the fixed items or the greedy solution are optimal
+        SubsetSolution coreSolution = null;
+        if(reduction.getCoreSize() > 0){
+            KnapsackData core = reduction.getCoreData();
+            coreSolution = new SubsetSolution(core.getIDs());
+            for(int id : KnapsackTestInstances.optimalItems(core, reduction.getCoreCapacity())){
+                coreSolution.select(id);
+            }
+        }
+        SubsetSolution solution = reduction.toBestOriginal(coreSolution);
+        assertEquals(instance.name + ": optimum", expected, reduction.computeProfit(solution), 1e-6);
+        assertTrue(instance.name + ": capacity exceeded", reduction.computeWeight(solution) <= instance.capacity);
+        assertTrue(instance.name + ": upper bound", reduction.getUpperBound() >= expected - 1e-6);
+        assertTrue(instance.name + ": lower bound", reduction.getLowerBound() <= expected + 1e-6);
+    }
+
+}
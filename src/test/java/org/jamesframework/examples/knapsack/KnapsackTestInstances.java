@@ -0,0 +1,124 @@
+/*
+ * Copyright 2014 Ghent University, Bayer CropScience.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jamesframework.examples.knapsack;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test instances with integer weights and their optimum computed by dynamic programming
+ * ({@link DynamicProgrammingKnapsackGenerator#solve}), shared by the tests of the exact knapsack algorithms.
+ */
+final class KnapsackTestInstances {
+
+    static final int NUM_RANDOM_INSTANCES = 2000;
+    private static final int MAX_ITEMS = 30;
+    private static final int MAX_VALUE = 20;
+    private static final double[] CAPACITY_FRACTIONS = {0.0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.99, 1.0};
+
+    /**
+     * Knapsack instance with a capacity.
+     */
+    static final class Instance {
+
+        final String name;
+        final KnapsackData data;
+        final double capacity;
+
+        private Instance(String name, KnapsackData data, double capacity){
+            this.name = name;
+            this.data = data;
+            this.capacity = capacity;
+        }
+
+    }
+
+    private KnapsackTestInstances(){}
+
+    /**
+     * @param file name of a bundled instance file
+     * @return the instance with integer capacities from none to all of its total weight
+     * @throws IOException if the file can not be read
+     */
+    static List<Instance> bundled(String file) throws IOException {
+        KnapsackData data = new KnapsackMappedFileReader().read("src/main/resources/" + file);
+        double total = data.getTotalWeight();
+        List<Instance> instances = new ArrayList<>();
+        for(double fraction : CAPACITY_FRACTIONS){
+            instances.add(new Instance(file + ", fraction " + fraction, data, Math.floor(fraction * total)));
+        }
+        return instances;
+    }
+
+    /**
+     * Generates small random instances with integer weights. Values are drawn from small ranges, so there are many
+     * ties in weight, profit and efficiency, and some items without weight or profit. Every other instance has
+     * fractional profits (multiples of 0.1, which are not exact in binary).
+     *
+     * @return {@value #NUM_RANDOM_INSTANCES} random instances, the same on every call
+     */
+    static List<Instance> random(){
+        Random r = new Random(42);
+        List<Instance> instances = new ArrayList<>(NUM_RANDOM_INSTANCES);
+        for(int k = 0; k < NUM_RANDOM_INSTANCES; k++){
+            int n = 1 + r.nextInt(MAX_ITEMS);
+            int maxValue = 1 + r.nextInt(MAX_VALUE);
+            boolean fractional = k % 2 == 1;
+            double[] weights = new double[n];
+            double[] profits = new double[n];
+            double total = 0.0;
+            for(int i = 0; i < n; i++){
+                weights[i] = r.nextInt(maxValue + 1);
+                profits[i] = fractional ? r.nextInt(10 * maxValue + 1) * 0.1 : r.nextInt(maxValue + 1);
+                total += weights[i];
+            }
+            double capacity = r.nextInt((int) total + 2);
+            instances.add(new Instance("random instance " + k, new KnapsackData(weights, profits), capacity));
+        }
+        return instances;
+    }
+
+    /**
+     * @param data knapsack data with integer weights
+     * @param capacity knapsack capacity, rounded down
+     * @return the items of an optimal solution, computed by dynamic programming
+     */
+    static int[] optimalItems(KnapsackData data, double capacity){
+        int n = data.getIDs().size();
+        int[] ids = new int[n];
+        for(int id = 0; id < n; id++){
+            ids[id] = id;
+        }
+        return DynamicProgrammingKnapsackGenerator.solve(data, ids, (int) Math.floor(capacity));
+    }
+
+    /**
+     * @param data knapsack data with integer weights
+     * @param capacity knapsack capacity, rounded down
+     * @return the optimal profit, computed by dynamic programming
+     */
+    static double optimum(KnapsackData data, double capacity){
+        double profit = 0.0;
+        for(int id : optimalItems(data, capacity)){
+            profit += data.getProfit(id);
+        }
+        return profit;
+    }
+
+}